@@ -0,0 +1,122 @@
+package org.nasdanika.docgen.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.emf.ecore.EObject;
+import org.nasdanika.docgen.DocumentationNode;
+import org.nasdanika.docgen.ObjectPathIndex;
+import org.nasdanika.docgen.emf.EObjectDocumentationNodeFactoryRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of documentation tree construction, node factory dispatch, node ids, and object path resolution.
+ * @author Pavel Vlasov
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DocumentationTreeBenchmark {
+
+	/**
+	 * Number of objects which paths are resolved by scanning the tree.
+	 */
+	private static final int OBJECT_PATH_SAMPLE_SIZE = 100;
+
+	@Param({ "WIDE", "DEEP", "CROSS_REFERENCED" })
+	public SyntheticModel.Shape shape;
+
+	@Param({ "1000" })
+	public int size;
+
+	@Param({ "10" })
+	public int classCount;
+
+	private SyntheticModel model;
+
+	private DocumentationNode tree;
+
+	private List<DocumentationNode> nodes;
+
+	private List<EObject> objectPathSample;
+
+	@Setup(Level.Trial)
+	public void setUpModel() {
+		model = new SyntheticModel(shape, size, classCount, 1);
+		objectPathSample = new ArrayList<>();
+		int step = Math.max(1, size / OBJECT_PATH_SAMPLE_SIZE);
+		for (int i = 0; i < size; i += step) {
+			objectPathSample.add(model.getObjects().get(i));
+		}
+	}
+
+	/**
+	 * Materializes a fresh tree, node ids are not computed yet.
+	 */
+	@Setup(Level.Invocation)
+	public void setUpTree() {
+		tree = model.createDocumentationTree();
+		nodes = new ArrayList<>();
+		tree.accept(nodes::add);
+	}
+
+	@Benchmark
+	public int treeConstruction() {
+		int[] counter = { 0 };
+		model.createDocumentationTree().accept(node -> ++counter[0]);
+		return counter[0];
+	}
+
+	@Benchmark
+	public void factoryDispatch(Blackhole blackhole) {
+		for (EObject obj: model.getObjects()) {
+			blackhole.consume(EObjectDocumentationNodeFactoryRegistry.INSTANCE.createDocumentationNode(obj));
+		}
+	}
+
+	@Benchmark
+	public void getId(Blackhole blackhole) {
+		for (DocumentationNode node: nodes) {
+			blackhole.consume(node.getId());
+		}
+	}
+
+	/**
+	 * Resolves a sample of objects by scanning the tree with {@link DocumentationNode#getObjectPath(Object)}.
+	 */
+	@Benchmark
+	public void getObjectPath(Blackhole blackhole) {
+		for (EObject obj: objectPathSample) {
+			blackhole.consume(tree.getObjectPath(obj));
+		}
+	}
+
+	/**
+	 * Builds {@link ObjectPathIndex} and resolves all objects.
+	 */
+	@Benchmark
+	public void objectPathIndex(Blackhole blackhole) {
+		ObjectPathIndex index = new ObjectPathIndex(tree, false);
+		for (EObject obj: model.getObjects()) {
+			blackhole.consume(index.apply(obj));
+		}
+	}
+
+}
@@ -0,0 +1,50 @@
+package org.nasdanika.docgen.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.nasdanika.docgen.emf.EObjectDocumentationNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmark of Markdown to HTML conversion of model documentation.
+ * @author Pavel Vlasov
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MarkdownBenchmark {
+
+	@Param({ "1", "10", "100" })
+	public int paragraphs;
+
+	private EObjectDocumentationNode node;
+
+	private String markdown;
+
+	@Setup
+	public void setUp() {
+		SyntheticModel model = new SyntheticModel(SyntheticModel.Shape.WIDE, 1, 1, 1);
+		node = (EObjectDocumentationNode) model.createDocumentationTree();
+		markdown = SyntheticModel.markdown(0, paragraphs);
+	}
+
+	@Benchmark
+	public String markdownToHtml() {
+		return node.markdownToHtml(markdown);
+	}
+
+}
@@ -0,0 +1,164 @@
+package org.nasdanika.docgen.benchmarks;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import javax.imageio.ImageIO;
+
+import org.nasdanika.docgen.DocumentationNode;
+import org.nasdanika.docgen.IconStore;
+import org.nasdanika.docgen.SiteDocumentationGeneratorSupplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of site generation steps - icon storage and table of contents serialization.
+ * @author Pavel Vlasov
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SiteBenchmark {
+
+	/**
+	 * Number of copies of each icon at different URL's, copies are deduplicated by content.
+	 */
+	private static final int ICON_COPIES = 3;
+
+	@Param({ "WIDE", "DEEP", "CROSS_REFERENCED" })
+	public SyntheticModel.Shape shape;
+
+	@Param({ "1000" })
+	public int size;
+
+	@Param({ "50" })
+	public int iconCount;
+
+	@Param({ "0", "16" })
+	public int iconSpriteSize;
+
+	@Param({ "false", "true" })
+	public boolean compactToc;
+
+	private Path iconsDirectory;
+
+	private List<URL> iconRequests;
+
+	private DocumentationNode tree;
+
+	private TocSupplier tocSupplier;
+
+	private IconStore tocIconStore;
+
+	/**
+	 * Exposes TOC creation.
+	 */
+	private static class TocSupplier extends SiteDocumentationGeneratorSupplier {
+
+		TocSupplier(DocumentationNode root) {
+			super("benchmarks", "toc", root);
+		}
+
+		String toc(DocumentationNode root, Function<Object, String> iconManager) {
+			TocContext context = createTocContext();
+			StringBuilder idMap = new StringBuilder();
+			StringBuilder tree = createTocBuffer();
+			int treeStart = tree.length();
+			for (DocumentationNode child: root.getChildren()) {
+				if (tree.length() > treeStart) {
+					tree.append(',');
+				}
+				writeToc(child, tree, idMap, node -> node.getId() + ".html", iconManager, 1, context);
+			}
+			return assembleToc(tree, idMap, null, context);
+		}
+
+	}
+
+	@Setup
+	public void setUp() throws IOException {
+		iconsDirectory = Files.createTempDirectory("docgen-benchmark-icons");
+		List<URL> icons = new ArrayList<>();
+		for (int i = 0; i < iconCount; ++i) {
+			BufferedImage image = new BufferedImage(16, 16, BufferedImage.TYPE_INT_ARGB);
+			Graphics2D graphics = image.createGraphics();
+			graphics.setColor(new Color(i * 7919 & 0xFFFFFF));
+			graphics.fillOval(1, 1, 14, 14);
+			graphics.dispose();
+			for (int j = 0; j < ICON_COPIES; ++j) {
+				File iconFile = iconsDirectory.resolve("copy-" + j).resolve("icon-" + i + ".png").toFile();
+				iconFile.getParentFile().mkdirs();
+				ImageIO.write(image, "png", iconFile);
+				icons.add(iconFile.toURI().toURL());
+			}
+		}
+		iconRequests = new ArrayList<>();
+		for (int i = 0; i < size; ++i) {
+			iconRequests.add(icons.get(i % icons.size()));
+		}
+
+		SyntheticModel model = new SyntheticModel(shape, size, 10, 1);
+		tree = model.createDocumentationTree();
+		tree.accept(DocumentationNode::getId); // Materializes the tree and caches ids.
+		tocSupplier = new TocSupplier(tree);
+		tocSupplier.setCompactToc(compactToc);
+		tocIconStore = new IconStore();
+		tocIconStore.setSpriteSize(iconSpriteSize);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		try (Stream<Path> paths = Files.walk(iconsDirectory)) {
+			paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+		}
+	}
+
+	/**
+	 * Stores icons to a new store, each icon is requested multiple times and has copies with the same content at different URL's.
+	 */
+	@Benchmark
+	public void iconManager(Blackhole blackhole) throws IOException {
+		IconStore iconStore = new IconStore();
+		iconStore.setSpriteSize(iconSpriteSize);
+		for (URL icon: iconRequests) {
+			blackhole.consume(iconStore.getTocIcon(icon));
+		}
+		blackhole.consume(iconStore.writeSprite());
+	}
+
+	/**
+	 * Creates and serializes the table of contents of a materialized tree.
+	 */
+	@Benchmark
+	public String createToc() {
+		return tocSupplier.toc(tree, tocIconStore::getTocIcon);
+	}
+
+}
@@ -0,0 +1,225 @@
+package org.nasdanika.docgen.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.eclipse.emf.common.command.BasicCommandStack;
+import org.eclipse.emf.common.util.EList;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.emf.edit.domain.AdapterFactoryEditingDomain;
+import org.eclipse.emf.edit.provider.ComposedAdapterFactory;
+import org.eclipse.emf.edit.provider.ReflectiveItemProviderAdapterFactory;
+import org.nasdanika.docgen.DocumentationNode;
+import org.nasdanika.docgen.emf.EObjectDocumentationNode;
+import org.nasdanika.docgen.emf.EObjectDocumentationNodeFactoryRegistry;
+
+/**
+ * Dynamic Ecore model of configurable size and shape for benchmarks.
+ * The metamodel has an abstract <code>Node</code> class with name and description attributes, <code>children</code> containment reference,
+ * and <code>references</code> cross-reference, and a number of concrete subclasses with Markdown documentation.
+ * Instances are contained in a resource of an {@link AdapterFactoryEditingDomain} with reflective item providers,
+ * so {@link EObjectDocumentationNode}s can be created for them.
+ * Models are generated from a seed and are the same for the same parameters.
+ * @author Pavel Vlasov
+ *
+ */
+public class SyntheticModel {
+
+	public static final String NS_URI = "urn:org.nasdanika.docgen.benchmarks:synthetic";
+
+	/**
+	 * Model shape.
+	 */
+	public enum Shape {
+
+		/**
+		 * All objects are children of the root.
+		 */
+		WIDE,
+
+		/**
+		 * Each object is the only child of the previous one.
+		 */
+		DEEP,
+
+		/**
+		 * Balanced tree with fan-out 10, each object references 10 random objects.
+		 */
+		CROSS_REFERENCED
+
+	}
+
+	private static final int FAN_OUT = 10;
+	private static final int REFERENCES_PER_OBJECT = 10;
+
+	private EPackage ePackage;
+	private EClass nodeClass;
+	private EAttribute nameAttribute;
+	private EAttribute descriptionAttribute;
+	private EReference childrenReference;
+	private EReference referencesReference;
+	private List<EClass> concreteClasses = new ArrayList<>();
+	private List<EObject> objects = new ArrayList<>();
+	private EObject root;
+	private ComposedAdapterFactory adapterFactory;
+
+	/**
+	 * @param shape Model shape.
+	 * @param size Number of objects excluding the root.
+	 * @param classCount Number of concrete classes, objects are assigned to classes round-robin.
+	 * @param seed Random seed for cross-references.
+	 */
+	public SyntheticModel(Shape shape, int size, int classCount, long seed) {
+		createMetamodel(classCount);
+
+		adapterFactory = new ComposedAdapterFactory(ComposedAdapterFactory.Descriptor.Registry.INSTANCE);
+		adapterFactory.addAdapterFactory(new ReflectiveItemProviderAdapterFactory());
+		AdapterFactoryEditingDomain editingDomain = new AdapterFactoryEditingDomain(adapterFactory, new BasicCommandStack());
+		Resource resource = editingDomain.getResourceSet().createResource(URI.createURI("synthetic.xmi"));
+
+		root = createObject(-1);
+		resource.getContents().add(root);
+
+		EObject parent = root;
+		for (int i = 0; i < size; ++i) {
+			EObject obj = createObject(i);
+			switch (shape) {
+			case WIDE:
+				children(root).add(obj);
+				break;
+			case DEEP:
+				children(parent).add(obj);
+				parent = obj;
+				break;
+			case CROSS_REFERENCED:
+				children(i < FAN_OUT ? root : objects.get(i / FAN_OUT - 1)).add(obj);
+				break;
+			}
+			objects.add(obj);
+		}
+
+		if (shape == Shape.CROSS_REFERENCED && size > 0) {
+			Random random = new Random(seed);
+			for (EObject obj: objects) {
+				@SuppressWarnings("unchecked")
+				EList<EObject> references = (EList<EObject>) obj.eGet(referencesReference);
+				for (int i = 0; i < REFERENCES_PER_OBJECT; ++i) {
+					references.add(objects.get(random.nextInt(size)));
+				}
+			}
+		}
+	}
+
+	private void createMetamodel(int classCount) {
+		EcoreFactory factory = EcoreFactory.eINSTANCE;
+		ePackage = factory.createEPackage();
+		ePackage.setName("synthetic");
+		ePackage.setNsPrefix("synthetic");
+		ePackage.setNsURI(NS_URI);
+
+		nodeClass = factory.createEClass();
+		nodeClass.setName("Node");
+		nodeClass.setAbstract(true);
+		ePackage.getEClassifiers().add(nodeClass);
+
+		nameAttribute = factory.createEAttribute();
+		nameAttribute.setName("name");
+		nameAttribute.setEType(EcorePackage.Literals.ESTRING);
+		nodeClass.getEStructuralFeatures().add(nameAttribute);
+
+		descriptionAttribute = factory.createEAttribute();
+		descriptionAttribute.setName("description");
+		descriptionAttribute.setEType(EcorePackage.Literals.ESTRING);
+		nodeClass.getEStructuralFeatures().add(descriptionAttribute);
+
+		childrenReference = factory.createEReference();
+		childrenReference.setName("children");
+		childrenReference.setEType(nodeClass);
+		childrenReference.setContainment(true);
+		childrenReference.setUpperBound(-1);
+		nodeClass.getEStructuralFeatures().add(childrenReference);
+
+		referencesReference = factory.createEReference();
+		referencesReference.setName("references");
+		referencesReference.setEType(nodeClass);
+		referencesReference.setUpperBound(-1);
+		nodeClass.getEStructuralFeatures().add(referencesReference);
+
+		for (int i = 0; i < Math.max(1, classCount); ++i) {
+			EClass concreteClass = factory.createEClass();
+			concreteClass.setName("Node" + i);
+			concreteClass.getESuperTypes().add(nodeClass);
+			EcoreUtil.setDocumentation(concreteClass, markdown(i, 3));
+			ePackage.getEClassifiers().add(concreteClass);
+			concreteClasses.add(concreteClass);
+		}
+	}
+
+	private EObject createObject(int index) {
+		EObject ret = EcoreUtil.create(concreteClasses.get((index + concreteClasses.size()) % concreteClasses.size()));
+		ret.eSet(nameAttribute, index == -1 ? "Root" : "Object " + index);
+		ret.eSet(descriptionAttribute, "Description of object " + index);
+		return ret;
+	}
+
+	@SuppressWarnings("unchecked")
+	private EList<EObject> children(EObject obj) {
+		return (EList<EObject>) obj.eGet(childrenReference);
+	}
+
+	/**
+	 * @param seed
+	 * @param paragraphs
+	 * @return Markdown text with a heading, emphasis, lists, a table, and code.
+	 */
+	public static String markdown(int seed, int paragraphs) {
+		StringBuilder ret = new StringBuilder("# Element ").append(seed).append("\n\n");
+		for (int i = 0; i < paragraphs; ++i) {
+			ret.append("Paragraph ").append(i).append(" with *emphasis*, **strong text**, `code`, and a [link](http://www.nasdanika.org).\n\n");
+			ret.append("* First item\n* Second item\n  1. Nested item\n\n");
+			ret.append("| Name | Value |\n|------|-------|\n| a | ").append(i).append(" |\n| b | ").append(seed).append(" |\n\n");
+			ret.append("```\nint x = ").append(i).append(";\n```\n\n");
+		}
+		return ret.toString();
+	}
+
+	public EPackage getEPackage() {
+		return ePackage;
+	}
+
+	/**
+	 * @return Root object.
+	 */
+	public EObject getRoot() {
+		return root;
+	}
+
+	/**
+	 * @return All objects except the root in the creation order.
+	 */
+	public List<EObject> getObjects() {
+		return objects;
+	}
+
+	public ComposedAdapterFactory getAdapterFactory() {
+		return adapterFactory;
+	}
+
+	/**
+	 * @return Documentation node of the root object created by {@link EObjectDocumentationNodeFactoryRegistry}. Children are materialized lazily.
+	 */
+	public DocumentationNode createDocumentationTree() {
+		return EObjectDocumentationNodeFactoryRegistry.INSTANCE.createDocumentationNode(root);
+	}
+
+}
@@ -20,6 +20,7 @@ import org.nasdanika.codegen.Generator;
 import org.nasdanika.config.Configuration;
 import org.nasdanika.docgen.DocumentationNodeImpl;
 import org.nasdanika.docgen.GenerateDocumentationAction;
+import org.nasdanika.docgen.GenerationMetrics;
 import org.nasdanika.docgen.SiteDocumentationGeneratorSupplier;
 import org.nasdanika.docgen.emf.EObjectDocumentationNode;
 import org.nasdanika.docgen.emf.EObjectDocumentationNodeFactoryRegistry;
@@ -27,13 +28,32 @@ import org.nasdanika.docgen.emf.EObjectDocumentationNodeFactoryRegistry;
 public class GenerateCodegenDocumentationAction extends GenerateDocumentationAction implements ISelectionChangedListener {
 	
 	protected EObject eObject;
+	
+	private boolean collectMetrics;
 
 	public GenerateCodegenDocumentationAction() {
 		super("Generate documentation");
 	}
 	
+	/**
+	 * @param collectMetrics If true, generation metrics are collected and written to the documentation folder. Defaults to false.
+	 */
+	public void setCollectMetrics(boolean collectMetrics) {
+		this.collectMetrics = collectMetrics;
+	}
+	
+	public boolean isCollectMetrics() {
+		return collectMetrics;
+	}
+	
 	@Override
 	protected Generator<?> getGenerator() {
+		SiteDocumentationGeneratorSupplier generatorSupplier = getGeneratorSupplier();
+		return generatorSupplier == null ? null : generatorSupplier.get();
+	}
+	
+	@Override
+	protected SiteDocumentationGeneratorSupplier getGeneratorSupplier() {
 		URI resourceURI = eObject.eResource().getURI();
 		URL baseURL = null;			
 		try {
@@ -53,7 +73,10 @@ public class GenerateCodegenDocumentationAction extends GenerateDocumentationAct
 			DocumentationNodeImpl rootNode = new DocumentationNodeImpl(modelFile.getName(), null);
 			rootNode.addChild(EObjectDocumentationNodeFactoryRegistry.INSTANCE.createDocumentationNode(eObject));
 			SiteDocumentationGeneratorSupplier siteDocumentationGeneratorSupplier = new SiteDocumentationGeneratorSupplier(project.getName(), "site/codegen-model-doc/"+modelFile.getName(), rootNode);
-			return siteDocumentationGeneratorSupplier.get();
+			if (collectMetrics) {
+				siteDocumentationGeneratorSupplier.setMetrics(new GenerationMetrics());
+			}
+			return siteDocumentationGeneratorSupplier;
 		}	
 		
 		return null;
@@ -1,11 +1,15 @@
 package org.nasdanika.docgen.emf;
 
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.TreeMap;
 import java.util.function.Function;
 
@@ -31,7 +35,11 @@ import org.nasdanika.codegen.ReconcileAction;
 import org.nasdanika.codegen.StaticText;
 import org.nasdanika.codegen.TextFile;
 import org.nasdanika.codegen.Workspace;
+import org.nasdanika.docgen.DeferredText;
+import org.nasdanika.docgen.DocumentationNode;
 import org.nasdanika.docgen.DocumentationNodeImpl;
+import org.nasdanika.docgen.IdStrategy;
+import org.nasdanika.docgen.PageLayout;
 import org.nasdanika.html.Bootstrap.Style;
 import org.nasdanika.html.Fragment;
 import org.nasdanika.html.HTMLFactory;
@@ -41,15 +49,16 @@ import org.nasdanika.html.Tabs;
 import org.nasdanika.html.Tag;
 import org.nasdanika.html.Tag.TagName;
 
-import com.vladsch.flexmark.ext.gfm.strikethrough.StrikethroughExtension;
-import com.vladsch.flexmark.ext.tables.TablesExtension;
-import com.vladsch.flexmark.html.HtmlRenderer;
-import com.vladsch.flexmark.parser.Parser;
-import com.vladsch.flexmark.util.options.MutableDataSet;
-
 /**
  * Base class for {@link EObject} documentation nodes. 
  * It uses {@link AdapterFactory} to obtain label and icon from {@link IItemLabelProvider}, children from {@link ITreeItemContentProvider}, and properties from {@link IItemPropertySource}.
+ * Children are materialized on first access to children of the node or of its ancestor. By default the whole subtree is materialized at once.
+ * With {@link #setLazyChildren(Boolean) lazy children} only children of the accessed node are materialized and they can be released with {@link #release()} 
+ * once the node subtree is generated. Released children are materialized again if accessed, so peak memory is bounded by the part of the tree which is being generated.
+ * Pages are rendered from {@link EObjectSnapshot}s captured by {@link #capture()}, so they can be rendered concurrently.
+ * Snapshots are released once pages are rendered. With deferred content a snapshot is taken when the page content is produced.
+ * Subclasses which override deprecated live model rendering methods, e.g. {@link #renderProperty(Workspace, Project, Folder, Function, Function, IItemPropertyDescriptor)}, 
+ * are rendered from the live model with these methods and are not {@link #isThreadSafe() thread-safe}.
  * @author Pavel Vlasov
  *
  */
@@ -60,12 +69,34 @@ public class EObjectDocumentationNode extends DocumentationNodeImpl {
 	
 	public static final String ECORE_DOC_ANNOTATION_SOURCE = "http://www.eclipse.org/emf/2002/GenModel";		
 	
-    Parser markdownParser;
-    HtmlRenderer markdownRenderer;
+	// Node class -> true if the class overrides deprecated live model rendering methods.
+	private static final ClassValue<Boolean> LIVE_MODEL_RENDERING = new ClassValue<Boolean>() {
 
-//    // You can re-use parser and renderer instances
-//    Node document = parser.parse("This is *Sparta*");
-//    String html = renderer.render(document);  // "<p>This is <em>Sparta</em></p>\n"
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			for (Class<?> c = type; c != null && c != EObjectDocumentationNode.class; c = c.getSuperclass()) {
+				for (Method method: c.getDeclaredMethods()) {
+					Class<?>[] parameterTypes = method.getParameterTypes();
+					if (method.getName().equals("renderContent") && parameterTypes.length == 6 && parameterTypes[5] == IItemPropertySource.class 
+							|| method.getName().equals("renderProperty") && parameterTypes.length == 6 && parameterTypes[5] == IItemPropertyDescriptor.class
+							|| method.getName().equals("renderPropertyValue") && parameterTypes.length == 3 && parameterTypes[0] == IItemPropertyDescriptor.class) {
+						return true;
+					}
+				}
+			}
+			return false;
+		}
+		
+	};
+	
+	private MarkdownRenderer markdownRenderer;
+	private volatile ModelDocumentationCache modelDocumentationCache;
+	private Boolean deferredContent;
+	private Boolean lazyChildren;
+	private boolean childrenMaterialized;
+	private EObjectSnapshot snapshot;
+	private boolean snapshotCaptured;
+	private volatile Boolean content;
        
 	public EObjectDocumentationNode(EObject eObject) {
 		ResourceSet resourceSet = eObject.eResource().getResourceSet();
@@ -79,33 +110,204 @@ public class EObjectDocumentationNode extends DocumentationNodeImpl {
 					setLabel(labelProvider.getText(eObject));
 					setIcon(labelProvider.getImage(eObject));
 				}
-				ITreeItemContentProvider treeItemContentProvider = (ITreeItemContentProvider) adapterFactory.adapt(eObject, ITreeItemContentProvider.class);
-				if (treeItemContentProvider != null) {
-					for (Object child: treeItemContentProvider.getChildren(eObject)) {
-						if (child instanceof EObject) {
-							addChild(EObjectDocumentationNodeFactoryRegistry.INSTANCE.createDocumentationNode((EObject) child));
-						}
-					}					
+			}
+		}
+	}
+	
+	@Override
+	public synchronized List<DocumentationNode> getChildren() {
+		ensureChildrenMaterialized();
+		return super.getChildren();
+	}
+	
+	/**
+	 * Makes sure that children collected by {@link #materializeChildren()} precede children added explicitly, e.g. by subclass constructors.
+	 */
+	@Override
+	public synchronized void addChild(DocumentationNode child) {
+		ensureChildrenMaterialized();
+		super.addChild(child);
+	}
+	
+	/**
+	 * Materializes children if they are not materialized. If children are not lazy, descendants are materialized too. 
+	 * The subtree is traversed iteratively, so its depth is not limited by the stack size.
+	 */
+	private void ensureChildrenMaterialized() {
+		if (childrenMaterialized) {
+			return;
+		}
+		childrenMaterialized = true;
+		materializeChildren();
+		if (isLazyChildren()) {
+			return;
+		}
+		Deque<DocumentationNode> queue = new ArrayDeque<>(super.getChildren());
+		while (!queue.isEmpty()) {
+			DocumentationNode node = queue.poll();
+			if (node instanceof EObjectDocumentationNode) {
+				EObjectDocumentationNode eObjectNode = (EObjectDocumentationNode) node;
+				synchronized (eObjectNode) {
+					if (!eObjectNode.childrenMaterialized && !eObjectNode.isLazyChildren()) {
+						eObjectNode.childrenMaterialized = true;
+						eObjectNode.materializeChildren();
+					}
+					queue.addAll(eObjectNode.getMaterializedChildren());
 				}
+			} else {
+				queue.addAll(node.getChildren());
 			}
 		}
-		
-		// Markdown
-	    MutableDataSet markdownOptions = new MutableDataSet();
-	    markdownOptions.set(Parser.EXTENSIONS, Arrays.asList(TablesExtension.create(), StrikethroughExtension.create()));
-	    markdownParser = Parser.builder(markdownOptions).build();
-	    markdownRenderer = HtmlRenderer.builder(markdownOptions).build();
 	}
 	
 	/**
-	 * Generates HTML documentation for a model element.
-	 * @param docRoute
-	 * @param baseURI
-	 * @param urlPrefix
+	 * @return Children without materialization.
+	 */
+	private List<DocumentationNode> getMaterializedChildren() {
+		return super.getChildren();
+	}
+	
+	/**
+	 * @param lazyChildren If true, children of this node and its descendants which don't have their own setting are materialized on first access 
+	 * to children of their parent and are released by {@link #release()}. If false, the subtree is materialized on first access to children and is retained.  
+	 * Null to inherit the setting. Shall be set before children are accessed.
+	 */
+	public void setLazyChildren(Boolean lazyChildren) {
+		this.lazyChildren = lazyChildren;
+	}
+	
+	/**
+	 * @return true if lazy children are set on this node or inherited from the closest {@link EObjectDocumentationNode} ancestor which has it set.
+	 */
+	public boolean isLazyChildren() {
+		return Boolean.TRUE.equals(getInherited(node -> node.lazyChildren));
+	}
+	
+	/**
+	 * Creates child nodes for children provided by {@link ITreeItemContentProvider}. Called on first access to children and after {@link #release()}.
+	 * Subclasses which contribute additional children shall override this method rather than add children in constructors, 
+	 * otherwise such children will be lost on release. 
+	 */
+	protected void materializeChildren() {
+		if (eObject != null && adapterFactory != null) {
+			ITreeItemContentProvider treeItemContentProvider = (ITreeItemContentProvider) adapterFactory.adapt(eObject, ITreeItemContentProvider.class);
+			if (treeItemContentProvider != null) {
+				for (Object child: treeItemContentProvider.getChildren(eObject)) {
+					if (child instanceof EObject) {
+						super.addChild(EObjectDocumentationNodeFactoryRegistry.INSTANCE.createDocumentationNode((EObject) child));
+					}
+				}					
+			}
+		}
+	}
+	
+	/**
+	 * Releases the page snapshot and, if children are lazy, materialized children. They will be materialized and captured again on next access.
+	 */
+	@Override
+	public synchronized void release() {
+		if (childrenMaterialized && isLazyChildren()) {
+			clearChildren();
+			childrenMaterialized = false;
+		}
+		releaseSnapshot();
+	}
+	
+	/**
+	 * Sets Markdown renderer for this node and its descendants which don't have their own renderer.
+	 * @param markdownRenderer
+	 */
+	public void setMarkdownRenderer(MarkdownRenderer markdownRenderer) {
+		this.markdownRenderer = markdownRenderer;
+	}
+	
+	/**
+	 * @return Markdown renderer set on this node or inherited from the closest {@link EObjectDocumentationNode} ancestor which has it set, or {@link MarkdownRenderer#INSTANCE}.
+	 */
+	public MarkdownRenderer getMarkdownRenderer() {
+		MarkdownRenderer ret = getInherited(node -> node.markdownRenderer);
+		return ret == null ? MarkdownRenderer.INSTANCE : ret;
+	}
+	
+	/**
+	 * @param deferredContent If true, pages of this node and its descendants which don't have their own setting are rendered when generation work is executed 
+	 * and are not retained in the generation model. If false, pages are rendered when content generators are built. Null to inherit the setting. 
+	 */
+	public void setDeferredContent(Boolean deferredContent) {
+		this.deferredContent = deferredContent;
+	}
+	
+	/**
+	 * @return true if deferred content rendering is set on this node or inherited from the closest {@link EObjectDocumentationNode} ancestor which has it set.
+	 */
+	public boolean isDeferredContent() {
+		return Boolean.TRUE.equals(getInherited(node -> node.deferredContent));
+	}
+	
+	/**
+	 * Returns value of the first non-null property of this node or its {@link EObjectDocumentationNode} ancestors.
+	 * @param property Property getter.
+	 * @return
+	 */
+	protected <T> T getInherited(Function<EObjectDocumentationNode, T> property) {
+		for (DocumentationNodeImpl node = this; node != null; node = node.getParent()) {
+			if (node instanceof EObjectDocumentationNode) {
+				T value = property.apply((EObjectDocumentationNode) node);
+				if (value != null) {
+					return value;
+				}
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Sets model documentation cache for this node and its descendants which don't have their own cache.
+	 * @param modelDocumentationCache
+	 */
+	public void setModelDocumentationCache(ModelDocumentationCache modelDocumentationCache) {
+		this.modelDocumentationCache = modelDocumentationCache;
+	}
+	
+	/**
+	 * @return Model documentation cache set on this node or inherited from the closest {@link EObjectDocumentationNode} ancestor which has it set. 
+	 * If no node has a cache, then the cache provided by {@link #getService(Class)}, e.g. shared by generations of a {@link org.nasdanika.docgen.DocumentationGenerationEngine}, 
+	 * or a new unbounded cache is set on the top-most {@link EObjectDocumentationNode}, i.e. documentation trees without a shared cache have one cache per tree.
+	 */
+	public ModelDocumentationCache getModelDocumentationCache() {
+		EObjectDocumentationNode top = this;
+		for (DocumentationNodeImpl node = this; node != null; node = node.getParent()) {
+			if (node instanceof EObjectDocumentationNode) {
+				top = (EObjectDocumentationNode) node;
+				if (top.modelDocumentationCache != null) {
+					return top.modelDocumentationCache;
+				}
+			}
+		}
+		synchronized (top) {
+			if (top.modelDocumentationCache == null) {
+				ModelDocumentationCache sharedCache = getService(ModelDocumentationCache.class);
+				top.modelDocumentationCache = sharedCache == null ? new ModelDocumentationCache() : sharedCache;
+			}
+			return top.modelDocumentationCache;
+		}
+	}
+	
+	/**
+	 * Returns HTML documentation for a model element. Documentation is rendered once per element and then served from the model documentation cache.
 	 * @param modelElement
 	 * @return
 	 */
 	public String getModelDocumentation(EModelElement modelElement) {
+		return getModelDocumentationCache().get(modelElement, this::renderModelDocumentation);
+	}
+	
+	/**
+	 * Generates HTML documentation for a model element from its GenModel documentation annotation.
+	 * @param modelElement
+	 * @return
+	 */
+	protected String renderModelDocumentation(EModelElement modelElement) {
 		EAnnotation docAnn = modelElement.getEAnnotation(ECORE_DOC_ANNOTATION_SOURCE);
 		if (docAnn==null) {
 			return null;
@@ -118,7 +320,7 @@ public class EObjectDocumentationNode extends DocumentationNodeImpl {
 	}
 	
 	public String markdownToHtml(String markdown) {
-        return markdownRenderer.render(markdownParser.parse(markdown));  
+        return getMarkdownRenderer().render(markdown);  
 	}
 	
 	@Override
@@ -129,85 +331,369 @@ public class EObjectDocumentationNode extends DocumentationNodeImpl {
 			Function<Object, String> objectPathResolver,
 			Function<Object, String> iconManager) {
 		
-		if (eObject != null && adapterFactory != null) {
-			IItemPropertySource propertySource = (IItemPropertySource) adapterFactory.adapt(eObject, IItemPropertySource.class);
-			if (propertySource != null) {
-				TextFile textFile = CodegenFactory.eINSTANCE.createTextFile();
-				docFolder.getChildren().add(textFile);
-				textFile.setReconcileAction(ReconcileAction.OVERWRITE);
-				textFile.setName(getId()+".html");
-
-				Map<String, List<IItemPropertyDescriptor>> categories = new TreeMap<>();
-				List<IItemPropertyDescriptor> uncategorized = new ArrayList<>();
-				for (IItemPropertyDescriptor pd: propertySource.getPropertyDescriptors(eObject)) {
-					if (pd.isPropertySet(eObject) || isRenderUnsetProperties()) {
-						String category = pd.getCategory(eObject);
-						if (CodegenUtil.isBlank(category)) {
-							uncategorized.add(pd);
-						} else {
-							List<IItemPropertyDescriptor> cl = categories.get(category);
-							if (cl == null) {
-								cl = new ArrayList<>();
-								categories.put(category, cl);
-							}
-							cl.add(pd);
+		if (hasContent()) {
+			String contentPath = getContentPath();
+			int slashIdx = contentPath.lastIndexOf('/');
+			TextFile textFile = CodegenFactory.eINSTANCE.createTextFile();
+			PageLayout.getFolder(docFolder, slashIdx == -1 ? "" : contentPath.substring(0, slashIdx)).getChildren().add(textFile);
+			textFile.setReconcileAction(ReconcileAction.OVERWRITE);
+			textFile.setName(contentPath.substring(slashIdx + 1));
+			
+			if (isDeferredContent()) {
+				// Icons can't be added to the generation model during work execution, so the node icon is registered now.
+				Object icon = getIcon();
+				String iconLoc = iconManager.apply(icon);
+				Function<Object, String> registeredIcons = i -> Objects.equals(i, icon) ? iconLoc : null;
+				// The snapshot is taken when content is produced and is not retained by the generation model.
+				// Content may be produced by different threads, e.g. for precompression, so model access is serialized.
+				textFile.getGenerators().add(new DeferredText(() -> {
+					EObjectSnapshot deferredSnapshot;
+					synchronized (adapterFactory) {
+						if (isLiveModelRendering()) {
+							return renderContent(workspace, project, docFolder, objectPathResolver, registeredIcons, getPropertySource());
 						}
+						deferredSnapshot = createSnapshot();
 					}
+					return deferredSnapshot == null ? "" : renderContent(workspace, project, docFolder, objectPathResolver, registeredIcons, deferredSnapshot);
+				}));
+			} else if (isLiveModelRendering()) {
+				StaticText staticContent = CodegenFactory.eINSTANCE.createStaticText();
+				staticContent.setContent(renderContent(workspace, project, docFolder, objectPathResolver, iconManager, getPropertySource()));
+				textFile.getGenerators().add(staticContent);
+			} else {
+				StaticText staticContent = CodegenFactory.eINSTANCE.createStaticText();
+				staticContent.setContent(renderContent(workspace, project, docFolder, objectPathResolver, iconManager, getSnapshot()));
+				textFile.getGenerators().add(staticContent);
+				releaseSnapshot();
+			}
+			return contentPath;
+		}
+		return super.buildContentGenerator(workspace, project, docFolder, objectPathResolver, iconManager);
+	}
+	
+	/**
+	 * Computes the node id and whether the node has content. Captures the page snapshot unless content is deferred, 
+	 * so the page can be rendered without accessing the live model. Deferred content is rendered from a snapshot taken when content is produced.
+	 */
+	@Override
+	public void capture() {
+		getId();
+		if (hasContent() && !isDeferredContent() && !isLiveModelRendering()) {
+			getSnapshot();
+		}
+	}
+	
+	/**
+	 * @return true if pages are rendered from snapshots, false if this class overrides deprecated live model rendering methods. 
+	 * Subclasses which access the live model in {@link #buildContentGenerator(Workspace, Project, Folder, Function, Function)}
+	 * shall return false.
+	 */
+	@Override
+	public boolean isThreadSafe() {
+		return !isLiveModelRendering();
+	}
+	
+	/**
+	 * @return true if the node class overrides deprecated methods which render pages from the live model, 
+	 * i.e. {@link #renderContent(Workspace, Project, Folder, Function, Function, IItemPropertySource)}, 
+	 * {@link #renderProperty(Workspace, Project, Folder, Function, Function, IItemPropertyDescriptor)}, or 
+	 * {@link #renderPropertyValue(IItemPropertyDescriptor, IItemPropertySource, Object)}. 
+	 * Such nodes are rendered with these methods so customizations are not lost.
+	 */
+	protected boolean isLiveModelRendering() {
+		return LIVE_MODEL_RENDERING.get(getClass());
+	}
+	
+	private IItemPropertySource getPropertySource() {
+		return (IItemPropertySource) adapterFactory.adapt(eObject, IItemPropertySource.class);
+	}
+	
+	/**
+	 * @return Page snapshot captured on first call or by {@link #capture()}. Null if the node doesn't generate a page.
+	 */
+	public synchronized EObjectSnapshot getSnapshot() {
+		if (!snapshotCaptured) {
+			snapshot = createSnapshot();
+			snapshotCaptured = true;
+		}
+		return snapshot;
+	}
+	
+	/**
+	 * Releases the page snapshot once the page is rendered, so snapshots and model objects referenced by their values are not retained.
+	 */
+	protected synchronized void releaseSnapshot() {
+		snapshot = null;
+		snapshotCaptured = false;
+	}
+	
+	/**
+	 * Captures page data from the object, its item providers and property descriptors.
+	 * @return Snapshot or null if the object has no {@link IItemPropertySource}.
+	 */
+	protected EObjectSnapshot createSnapshot() {
+		if (eObject == null || adapterFactory == null) {
+			return null;
+		}
+		IItemPropertySource propertySource = (IItemPropertySource) adapterFactory.adapt(eObject, IItemPropertySource.class);
+		if (propertySource == null) {
+			return null;
+		}
+		List<EObjectSnapshot.Property> properties = new ArrayList<>();
+		for (IItemPropertyDescriptor pd: propertySource.getPropertyDescriptors(eObject)) {
+			if (pd.isPropertySet(eObject) || isRenderUnsetProperties()) {
+				properties.add(createPropertySnapshot(pd));
+			}
+		}
+		EReference containmentReference = eObject.eContainmentFeature();
+		return new EObjectSnapshot(
+				getLabel(), 
+				getIcon(), 
+				eObject.eClass().getName(), 
+				getModelDocumentation(eObject.eClass()), 
+				containmentReference == null ? null : containmentReference.getName(), 
+				containmentReference == null ? null : getModelDocumentation(containmentReference), 
+				properties);
+	}
+	
+	/**
+	 * Captures property display name, category, feature documentation and values.
+	 * @param propertyDescriptor
+	 * @return
+	 */
+	protected EObjectSnapshot.Property createPropertySnapshot(IItemPropertyDescriptor propertyDescriptor) {
+		String displayName = propertyDescriptor.getDisplayName(eObject);
+		String category = propertyDescriptor.getCategory(eObject);
+		Object value = propertyDescriptor.getPropertyValue(eObject);
+		Object feature = propertyDescriptor.getFeature(eObject);
+		boolean modelElementFeature = feature instanceof EModelElement;
+		if (value == null) {
+			return new EObjectSnapshot.Property(displayName, category, null, modelElementFeature, false, false, null);
+		}
+		String documentation = modelElementFeature ? getModelDocumentation((EModelElement) feature) : null;
+		List<EObjectSnapshot.Value> values = new ArrayList<>();
+		if (value instanceof IItemPropertySource) {
+			Object editableValue = ((IItemPropertySource) value).getEditableValue(eObject);
+			boolean many = propertyDescriptor.isMany(eObject) && editableValue instanceof Collection;
+			if (many) {
+				for (Object el: (Collection<?>) editableValue) {
+					values.add(createValueSnapshot(propertyDescriptor, el));
 				}
-				
-				StaticText content = CodegenFactory.eINSTANCE.createStaticText();
-				HTMLFactory htmlFactory = HTMLFactory.INSTANCE;
-				Fragment contentFragment = htmlFactory.fragment();
-				Tag header = htmlFactory.tag(TagName.h2);
-				String iconLoc = iconManager.apply(getIcon());
-				if (iconLoc != null) {
-					header.content(TagName.img.create().attribute("src", iconLoc), " ", getLabel());					
-				} else {
-					header.content(getLabel());
-				}				
-				contentFragment.content(header);				
-				Table headerTable = htmlFactory.table();
-				contentFragment.content(headerTable);
-				String eClassDocumentation = getModelDocumentation(eObject.eClass());
-				headerTable.row("<B>EClass</B> ", eObject.eClass().getName(), CodegenUtil.isBlank(eClassDocumentation) ? "" : eClassDocumentation); // TODO - link.
-				
-				EReference containmentReference = eObject.eContainmentFeature();
-				if (containmentReference != null) {
-					String containmentReferenceDocumentation = getModelDocumentation(containmentReference);
-					headerTable.row("<B>Role</B> ", containmentReference.getName(), CodegenUtil.isBlank(containmentReferenceDocumentation) ? "" : containmentReferenceDocumentation);			
+			} else {
+				values.add(createValueSnapshot(propertyDescriptor, editableValue));
+			}
+			return new EObjectSnapshot.Property(displayName, category, documentation, modelElementFeature, many, true, values);
+		}
+		values.add(createValueSnapshot(propertyDescriptor, value));
+		return new EObjectSnapshot.Property(displayName, category, documentation, modelElementFeature, false, false, values);
+	}
+	
+	/**
+	 * Captures property value.
+	 * @param propertyDescriptor
+	 * @param value
+	 * @return
+	 */
+	protected EObjectSnapshot.Value createValueSnapshot(IItemPropertyDescriptor propertyDescriptor, Object value) {
+		return new EObjectSnapshot.Value(value, String.valueOf(value));
+	}
+	
+	/**
+	 * Renders documentation page HTML from the snapshot. This method doesn't access the live model and may be called concurrently for different nodes. 
+	 * In the deferred content mode this method is called during generation work execution and icon manager resolves only the node icon. 
+	 * @param workspace
+	 * @param project
+	 * @param docFolder
+	 * @param objectPathResolver
+	 * @param iconManager
+	 * @param snapshot
+	 * @return
+	 */
+	protected String renderContent(
+			Workspace workspace, 
+			Project project, 
+			Folder docFolder,
+			Function<Object, String> objectPathResolver,
+			Function<Object, String> iconManager,
+			EObjectSnapshot snapshot) {
+		
+		return renderPage(
+				iconManager.apply(snapshot.getIcon()), 
+				snapshot.getLabel(), 
+				snapshot.getEClassName(), 
+				snapshot.getEClassDocumentation(), 
+				snapshot.getRole(), 
+				snapshot.getRoleDocumentation(), 
+				snapshot.getProperties(), 
+				EObjectSnapshot.Property::getCategory, 
+				property -> renderProperty(workspace, project, docFolder, objectPathResolver, iconManager, property));
+	}
+	
+	/**
+	 * Renders page header and properties grouped into category tabs.
+	 * @param iconLoc Icon location or null.
+	 * @param label
+	 * @param eClassName
+	 * @param eClassDocumentation
+	 * @param role Containment feature name or null.
+	 * @param roleDocumentation
+	 * @param properties Properties to render.
+	 * @param categoryProvider Provides property category.
+	 * @param propertyRenderer Renders property.
+	 * @return
+	 */
+	private static <P> String renderPage(
+			String iconLoc,
+			String label,
+			String eClassName,
+			String eClassDocumentation,
+			String role,
+			String roleDocumentation,
+			List<P> properties,
+			Function<P, String> categoryProvider,
+			Function<P, Object> propertyRenderer) {
+		
+		Map<String, List<P>> categories = new TreeMap<>();
+		List<P> uncategorized = new ArrayList<>();
+		for (P property: properties) {
+			String category = categoryProvider.apply(property);
+			if (CodegenUtil.isBlank(category)) {
+				uncategorized.add(property);
+			} else {
+				List<P> cl = categories.get(category);
+				if (cl == null) {
+					cl = new ArrayList<>();
+					categories.put(category, cl);
 				}
-				
-				// TODO - description - special treatment for annotated features/properties.
-				if (categories.isEmpty()) {
-					for (IItemPropertyDescriptor pd: uncategorized) {
-						contentFragment.content(renderProperty(workspace, project, docFolder, objectPathResolver, iconManager, pd));
-					}
-				} else {
-					Tabs tabs = htmlFactory.tabs();
-					Fragment gf = htmlFactory.fragment();
-					for (IItemPropertyDescriptor pd: uncategorized) {
-						gf.content(renderProperty(workspace, project, docFolder, objectPathResolver, iconManager, pd));
-					}
-					if (!gf.isEmpty()) {
-						tabs.item("General", gf);
-					}
-					
-					for (Entry<String, List<IItemPropertyDescriptor>> ce: categories.entrySet()) {
-						Fragment cf = htmlFactory.fragment();
-						for (IItemPropertyDescriptor pd: ce.getValue()) {
-							cf.content(renderProperty(workspace, project, docFolder, objectPathResolver, iconManager, pd));
-						}
-						tabs.item(StringEscapeUtils.escapeHtml4(ce.getKey()), cf);						
-					}
-					
-					contentFragment.content(tabs);					
+				cl.add(property);
+			}
+		}
+		
+		HTMLFactory htmlFactory = HTMLFactory.INSTANCE;
+		Fragment contentFragment = htmlFactory.fragment();
+		Tag header = htmlFactory.tag(TagName.h2);
+		if (iconLoc != null) {
+			header.content(TagName.img.create().attribute("src", iconLoc), " ", label);					
+		} else {
+			header.content(label);
+		}				
+		contentFragment.content(header);				
+		Table headerTable = htmlFactory.table();
+		contentFragment.content(headerTable);
+		headerTable.row("<B>EClass</B> ", eClassName, CodegenUtil.isBlank(eClassDocumentation) ? "" : eClassDocumentation); // TODO - link.
+		
+		if (role != null) {
+			headerTable.row("<B>Role</B> ", role, CodegenUtil.isBlank(roleDocumentation) ? "" : roleDocumentation);			
+		}
+		
+		// TODO - description - special treatment for annotated features/properties.
+		if (categories.isEmpty()) {
+			for (P property: uncategorized) {
+				contentFragment.content(propertyRenderer.apply(property));
+			}
+		} else {
+			Tabs tabs = htmlFactory.tabs();
+			Fragment gf = htmlFactory.fragment();
+			for (P property: uncategorized) {
+				gf.content(propertyRenderer.apply(property));
+			}
+			if (!gf.isEmpty()) {
+				tabs.item("General", gf);
+			}
+			
+			for (Entry<String, List<P>> ce: categories.entrySet()) {
+				Fragment cf = htmlFactory.fragment();
+				for (P property: ce.getValue()) {
+					cf.content(propertyRenderer.apply(property));
 				}
-				content.setContent(contentFragment.toString());					
-				textFile.getGenerators().add(content);				
-				return textFile.getName();
+				tabs.item(StringEscapeUtils.escapeHtml4(ce.getKey()), cf);						
 			}
+			
+			contentFragment.content(tabs);					
 		}
-		return super.buildContentGenerator(workspace, project, docFolder, objectPathResolver, iconManager);
+		return contentFragment.toString();
+	}
+	
+	/**
+	 * Renders documentation page HTML from the live model with {@link #renderProperty(Workspace, Project, Folder, Function, Function, IItemPropertyDescriptor)}.
+	 * Called instead of {@link #renderContent(Workspace, Project, Folder, Function, Function, EObjectSnapshot)} if {@link #isLiveModelRendering()} is true.
+	 * @deprecated Override {@link #renderContent(Workspace, Project, Folder, Function, Function, EObjectSnapshot)} instead, so pages can be rendered concurrently.
+	 */
+	@Deprecated
+	protected String renderContent(
+			Workspace workspace, 
+			Project project, 
+			Folder docFolder,
+			Function<Object, String> objectPathResolver,
+			Function<Object, String> iconManager,
+			IItemPropertySource propertySource) {
+		
+		if (propertySource == null) {
+			return "";
+		}
+		List<IItemPropertyDescriptor> propertyDescriptors = new ArrayList<>();
+		for (IItemPropertyDescriptor pd: propertySource.getPropertyDescriptors(eObject)) {
+			if (pd.isPropertySet(eObject) || isRenderUnsetProperties()) {
+				propertyDescriptors.add(pd);
+			}
+		}
+		EReference containmentReference = eObject.eContainmentFeature();
+		return renderPage(
+				iconManager.apply(getIcon()), 
+				getLabel(), 
+				eObject.eClass().getName(), 
+				getModelDocumentation(eObject.eClass()), 
+				containmentReference == null ? null : containmentReference.getName(), 
+				containmentReference == null ? null : getModelDocumentation(containmentReference), 
+				propertyDescriptors, 
+				pd -> pd.getCategory(eObject), 
+				pd -> renderProperty(workspace, project, docFolder, objectPathResolver, iconManager, pd));
+	}
+
+	/**
+	 * @return true if this node generates a documentation page, i.e. if its object has {@link IItemPropertySource}. 
+	 * The result is computed on first call, which is made by {@link #capture()}, and then cached, so it can be called concurrently after capture.
+	 */
+	protected boolean hasContent() {
+		Boolean ret = content;
+		if (ret == null) {
+			ret = content = eObject != null && adapterFactory != null && adapterFactory.adapt(eObject, IItemPropertySource.class) != null;
+		}
+		return ret;
+	}
+	
+	/**
+	 * @return {@link EObjectIdStrategy#INSTANCE} - ids derived from object ID attributes and URI fragments.
+	 */
+	@Override
+	protected IdStrategy getDefaultIdStrategy() {
+		return EObjectIdStrategy.INSTANCE;
+	}
+	
+	/**
+	 * @return Path of the documentation page relative to the doc folder as defined by the page layout.
+	 */
+	protected String getContentPath() {
+		return getPageLayout().getPagePath(this);
+	}
+	
+	/**
+	 * Documents its {@link EObject} if it has content.
+	 */
+	@Override
+	public Collection<?> getDocumentedObjects() {
+		return hasContent() ? Collections.singletonList(eObject) : Collections.emptyList();
+	}
+	
+	/**
+	 * Resolves own object.
+	 */
+	@Override
+	protected String getOwnObjectPath(Object object) {
+		if (object != null && object == eObject && hasContent()) {
+			return getContentPath();
+		}
+		return null;
 	}
 
 	/**
@@ -219,14 +705,55 @@ public class EObjectDocumentationNode extends DocumentationNodeImpl {
 	}
 
 	/**
-	 * Renders property documentation.
+	 * Renders property documentation from its snapshot.
 	 * @param workspace
 	 * @param project
 	 * @param docFolder
 	 * @param objectPathResolver
-	 * @param propertyDescriptor
+	 * @param property
 	 * @return
 	 */
+	protected Object renderProperty(
+			Workspace workspace, 
+			Project project, 
+			Folder docFolder,
+			Function<Object, String> objectPathResolver,
+			Function<Object, String> iconManager,
+			EObjectSnapshot.Property property) {
+		
+		List<EObjectSnapshot.Value> values = property.getValues();
+		if (values == null) {
+			return "";
+		}
+		HTMLFactory htmlFactory = HTMLFactory.INSTANCE;
+		Fragment ret = htmlFactory.fragment(); // TODO - content type?
+		ret.content(TagName.h3.create(StringEscapeUtils.escapeHtml4(property.getDisplayName())));
+		if (property.isModelElementFeature()) {
+			ret.content(htmlFactory.well(property.getDocumentation()).small());
+		}
+		
+		if (property.isPropertySource()) {
+			if (property.isMany()) {
+				ListGroup valuesGroup = htmlFactory.listGroup();
+				for (EObjectSnapshot.Value value: values) {
+					valuesGroup.item(renderPropertyValue(property, value), Style.DEFAULT);
+				}
+				ret.content(valuesGroup);
+			} else {
+				ret.content(TagName.div.create("<B>Value:</B> ", renderPropertyValue(property, values.get(0))));											
+			}
+		} else {
+			ret.content("<B>Value:</B> ", renderPropertyValue(property, values.get(0)), "<P/>");							
+		}
+		
+		return ret;
+	}
+	
+	/**
+	 * Renders property documentation from the live model. Called if {@link #isLiveModelRendering()} is true.
+	 * @deprecated Override {@link #renderProperty(Workspace, Project, Folder, Function, Function, EObjectSnapshot.Property)} instead, so pages can be rendered concurrently.
+	 */
+	@Deprecated
 	protected Object renderProperty(
 			Workspace workspace, 
 			Project project, 
@@ -247,10 +774,6 @@ public class EObjectDocumentationNode extends DocumentationNodeImpl {
 			String description = getModelDocumentation((EModelElement) feature);
 			ret.content(htmlFactory.well(description).small());
 		}
-//		Object feature = propertyDescriptor.getFeature(eObject);
-//		if (feature instanceof EStructuralFeature) {
-//			ret.content("<B>Role:</B> ", ((EStructuralFeature) feature).getName(), "<P/>");			
-//		}
 		
 		if (value instanceof IItemPropertySource) {
 			IItemPropertySource propertySource = (IItemPropertySource) value;
@@ -273,10 +796,19 @@ public class EObjectDocumentationNode extends DocumentationNodeImpl {
 
 	/**
 	 * Renders property value.
-	 * @param propertyDescriptor
+	 * @param property
 	 * @param value
 	 * @return
 	 */
+	protected Object renderPropertyValue(EObjectSnapshot.Property property, EObjectSnapshot.Value value) {		
+		return TagName.div.create(StringEscapeUtils.escapeHtml4(value.getText())).style().whiteSpace().pre(); // TODO.
+	}
+	
+	/**
+	 * Renders property value from the live model. Called if {@link #isLiveModelRendering()} is true.
+	 * @deprecated Override {@link #renderPropertyValue(EObjectSnapshot.Property, EObjectSnapshot.Value)} instead, so pages can be rendered concurrently.
+	 */
+	@Deprecated
 	protected Object renderPropertyValue(IItemPropertyDescriptor propertyDescriptor, IItemPropertySource propertySource, Object value) {		
 		return TagName.div.create(StringEscapeUtils.escapeHtml4(String.valueOf(value))).style().whiteSpace().pre(); // TODO.
 	}
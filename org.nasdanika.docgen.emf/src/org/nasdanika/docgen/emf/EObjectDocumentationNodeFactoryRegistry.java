@@ -7,6 +7,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IContributor;
@@ -33,24 +35,54 @@ public class EObjectDocumentationNodeFactoryRegistry implements DocumentationNod
 	
 	public static final EObjectDocumentationNodeFactoryRegistry INSTANCE = new EObjectDocumentationNodeFactoryRegistry();
 	
+	/**
+	 * Factory used for classes without a registered factory.
+	 */
+	private static final DocumentationNodeFactory<EObject> DEFAULT_FACTORY = EObjectDocumentationNode::new;
+	
 	@Override
 	public DocumentationNode createDocumentationNode(EObject obj) {
 		if (obj == null) {
 			return null;
 		}
-		Map<DocumentationNodeFactory<EObject>, Integer> matched = match(obj.eClass());
+		return getFactory(obj.eClass()).createDocumentationNode(obj);
+	}
+	
+	/**
+	 * Returns factory for a given EClass. Factories are resolved once per EClass and then served from the dispatch table.
+	 * @param eClass
+	 * @return Registered factory with the closest match or the default factory which creates {@link EObjectDocumentationNode}. 
+	 */
+	public DocumentationNodeFactory<EObject> getFactory(EClass eClass) {
+		DispatchTable dispatchTable = this.dispatchTable;
+		DocumentationNodeFactory<EObject> ret = dispatchTable.factories.get(eClass);
+		if (ret == null) {
+			ret = dispatchTable.factories.computeIfAbsent(eClass, ec -> resolve(dispatchTable.entries, ec));
+		}
+		return ret;
+	}
+	
+	/**
+	 * Resolves factory by matching registry entries.
+	 * @param entries Registry entries snapshot.
+	 * @param eClass
+	 * @return
+	 */
+	private static DocumentationNodeFactory<EObject> resolve(List<FactoryEntry> entries, EClass eClass) {
+		Map<DocumentationNodeFactory<EObject>, Integer> matched = match(entries, eClass);
 		int distance = -1;
 		DocumentationNodeFactory<EObject> matchedFactory = null;
 		for (Entry<DocumentationNodeFactory<EObject>, Integer> me: matched.entrySet()) {
 			Integer md = me.getValue();
 			if (md == 0) {
-				return me.getKey().createDocumentationNode(obj);
+				return me.getKey();
 			}
 			if (matchedFactory == null || md < distance) {
 				matchedFactory = me.getKey();
+				distance = md;
 			}
 		}
-		return matchedFactory == null ? new EObjectDocumentationNode(obj): matchedFactory.createDocumentationNode(obj); 
+		return matchedFactory == null ? DEFAULT_FACTORY : matchedFactory; 
 	}
 	
 	private ExtensionTracker factoryExtensionTracker;
@@ -58,7 +90,7 @@ public class EObjectDocumentationNodeFactoryRegistry implements DocumentationNod
 	private static final String NAMESPACE_URI_ATTRIBUTE  = "namespace-uri";
 	private static final String ECLASS_NAME_ATTRIBUTE  = "eclass-name";
 	
-	private class FactoryEntry implements Comparable<FactoryEntry> {
+	private static class FactoryEntry implements Comparable<FactoryEntry> {
 		private DocumentationNodeFactory<EObject> factory;
 		private String namespaceURI;
 		private String eClassName;
@@ -101,10 +133,35 @@ public class EObjectDocumentationNodeFactoryRegistry implements DocumentationNod
 						
 	}
 	
-	private List<FactoryEntry> factories = new ArrayList<>();
+	/**
+	 * Immutable snapshot of registry entries with EClass to factory dispatch table computed from them.
+	 * Registry changes replace the whole snapshot (copy-on-write), so lookups don't need locking and 
+	 * factories resolved from a stale entry list never end up in the current table.
+	 */
+	private static class DispatchTable {
+		
+		final List<FactoryEntry> entries;
+		final ConcurrentMap<EClass, DocumentationNodeFactory<EObject>> factories = new ConcurrentHashMap<>();
+		
+		DispatchTable(List<FactoryEntry> entries) {
+			this.entries = Collections.unmodifiableList(entries);
+		}
+		
+	}
+	
+	private volatile DispatchTable dispatchTable = new DispatchTable(new ArrayList<>());
+	
+	/**
+	 * Serializes registry modifications.
+	 */
+	private final Object lock = new Object();
 	
 	public EObjectDocumentationNodeFactoryRegistry() {
 		IExtensionRegistry extensionRegistry = Platform.getExtensionRegistry();
+		if (extensionRegistry == null) {
+			// Not running in OSGi, e.g. in benchmarks - only the default factory is used.
+			return;
+		}
 		factoryExtensionTracker = new ExtensionTracker(extensionRegistry);
     	IExtensionPoint extensionPoint = extensionRegistry.getExtensionPoint("org.nasdanika.docgen.emf.documentation-node-factory");   
     	
@@ -126,9 +183,11 @@ public class EObjectDocumentationNodeFactoryRegistry implements DocumentationNod
     								ce.getAttribute(NAMESPACE_URI_ATTRIBUTE),
     								ce.getAttribute(ECLASS_NAME_ATTRIBUTE));
     						
-	    					synchronized (factories) {
-								factories.add(factoryEntry);
-								Collections.sort(factories);
+	    					synchronized (lock) {
+	    						List<FactoryEntry> entries = new ArrayList<>(dispatchTable.entries);
+	    						entries.add(factoryEntry);
+								Collections.sort(entries);
+								dispatchTable = new DispatchTable(entries);
 	    					}
 
 	    					tracker.registerObject(extension, factoryEntry, IExtensionTracker.REF_WEAK);
@@ -143,10 +202,12 @@ public class EObjectDocumentationNodeFactoryRegistry implements DocumentationNod
     		
  			@Override
     		public void removeExtension(IExtension extension, Object[] objects) {
-    			synchronized (factories) {
+    			synchronized (lock) {
+    				List<FactoryEntry> entries = new ArrayList<>(dispatchTable.entries);
 	    			for (Object obj: objects) {
-	    				factories.remove(obj);
+	    				entries.remove(obj);
 	    			}
+					dispatchTable = new DispatchTable(entries);
     			}
 			}
     		
@@ -159,21 +220,20 @@ public class EObjectDocumentationNodeFactoryRegistry implements DocumentationNod
 	}
 	
 	/**
-	 * Collects route entries matching given EClass. 
+	 * Collects factories matching given EClass. 
+	 * @param entries Registry entries.
 	 * @param eClass
-	 * @return A list of matched route entries. A new modifiable list is returned, so clients can, for example, sort it. 
+	 * @return A map of matched factories to match distance. A new modifiable map is returned. 
 	 */
-	Map<DocumentationNodeFactory<EObject>, Integer> match(EClass eClass) {
+	private static Map<DocumentationNodeFactory<EObject>, Integer> match(List<FactoryEntry> entries, EClass eClass) {
 		Map<DocumentationNodeFactory<EObject>, Integer> accumulator = new HashMap<>();
-		synchronized (factories) {
-			match(eClass, accumulator, new HashSet<EClass>(), 0);
-		}
+		match(entries, eClass, accumulator, new HashSet<EClass>(), 0);
 		return accumulator;
 	}
 	
-	private void match(EClass eClass, Map<DocumentationNodeFactory<EObject>, Integer> accumulator, HashSet<EClass> traversed, final int distance) {
+	private static void match(List<FactoryEntry> entries, EClass eClass, Map<DocumentationNodeFactory<EObject>, Integer> accumulator, HashSet<EClass> traversed, final int distance) {
 		if (traversed.add(eClass)) {
-			for (FactoryEntry factoryEntry: factories) {
+			for (FactoryEntry factoryEntry: entries) {
 				if (factoryEntry.match(eClass)) {
 					if (CodegenUtil.isBlank(factoryEntry.eClassName)) {
 						accumulator.put(factoryEntry.factory, distance + 1000000);
@@ -187,7 +247,7 @@ public class EObjectDocumentationNodeFactoryRegistry implements DocumentationNod
 			}
 			int offset = 0;
 			for (EClass st: eClass.getESuperTypes()) {
-				match(st, accumulator, traversed, distance + 1000 + (offset++)); 
+				match(entries, st, accumulator, traversed, distance + 1000 + (offset++)); 
 			}
 		}		
 	}	
@@ -0,0 +1,177 @@
+package org.nasdanika.docgen.emf;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.nasdanika.docgen.DocumentationNodeImpl;
+import org.nasdanika.docgen.IdStrategy;
+
+/**
+ * Default id strategy of {@link EObjectDocumentationNode}s - a short hash of the object's ID attribute value, if it is set, 
+ * or of the object's resource path in the workspace and the object's name path in the resource. 
+ * The name path consists of containment feature names and names of contained objects, so ids don't change when siblings are inserted or removed. 
+ * Nodes which are not at the object's containment location, i.e. whose closest {@link EObjectDocumentationNode} ancestor doesn't document the object container or 
+ * is not at its containment location either, include the parent id in the hash, so the same object documented in several places gets different ids.
+ * Ids don't depend on positions of nodes in the tree, so unchanged objects keep their page file names across generations.
+ * Nodes which are not {@link EObjectDocumentationNode}s get positional ids.
+ * @author Pavel Vlasov
+ *
+ */
+public class EObjectIdStrategy implements IdStrategy {
+
+	public static final EObjectIdStrategy INSTANCE = new EObjectIdStrategy();
+
+	@Override
+	public String getId(DocumentationNodeImpl node) {
+		if (node instanceof EObjectDocumentationNode) {
+			String source = getSource(((EObjectDocumentationNode) node).eObject);
+			if (source != null) {
+				if (!isAtContainmentLocation((EObjectDocumentationNode) node)) {
+					source = node.getParent().getId() + "/" + source;
+				}
+				return IdStrategy.hash(source);
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * @param node
+	 * @return true if the node and its {@link EObjectDocumentationNode} ancestors document objects contained by objects of their closest {@link EObjectDocumentationNode} ancestors.
+	 * The top-most {@link EObjectDocumentationNode} is at its containment location.
+	 */
+	protected boolean isAtContainmentLocation(EObjectDocumentationNode node) {
+		EObjectDocumentationNode current = node;
+		for (DocumentationNodeImpl ancestor = node.getParent(); ancestor != null; ancestor = ancestor.getParent()) {
+			if (ancestor instanceof EObjectDocumentationNode) {
+				EObjectDocumentationNode eObjectAncestor = (EObjectDocumentationNode) ancestor;
+				if (current.eObject == null || eObjectAncestor.eObject != current.eObject.eContainer()) {
+					return false;
+				}
+				current = eObjectAncestor;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @param eObject
+	 * @return String to derive id from - ID attribute value prefixed with the EClass name, or resource path with the object name path. Null if the object is not in a resource.
+	 */
+	protected String getSource(EObject eObject) {
+		if (eObject == null) {
+			return null;
+		}
+		String id = EcoreUtil.getID(eObject);
+		if (id != null) {
+			return eObject.eClass().getName() + ":" + id;
+		}
+		Resource resource = eObject.eResource();
+		return resource == null ? null : getResourcePath(resource) + "#" + getNamePath(eObject);
+	}
+	
+	/**
+	 * @param resource
+	 * @return Workspace path of the resource, e.g. <code>/my.project/model/my.xmi</code>, so ids don't depend on the workspace location. 
+	 * Resource URI if the resource is not in the workspace. 
+	 */
+	protected String getResourcePath(Resource resource) {
+		URI uri = resource.getURI();
+		if (uri == null) {
+			return "";
+		}
+		if (uri.isPlatformResource()) {
+			return uri.toPlatformString(true);
+		}
+		if (uri.isFile()) {
+			try {
+				IFile[] files = ResourcesPlugin.getWorkspace().getRoot().findFilesForLocationURI(java.net.URI.create(uri.toString()));
+				if (files.length > 0) {
+					return files[0].getFullPath().toString();
+				}
+			} catch (IllegalArgumentException | IllegalStateException e) {
+				// Not a valid location URI or the workspace is not available.
+			}
+		}
+		return uri.toString();
+	}
+	
+	/**
+	 * @param eObject
+	 * @return Path of the object in its resource - slash-separated segments of containment feature names followed by object names in square brackets, 
+	 * e.g. <code>[library]/books[Moby Dick]</code>. Objects without ID and name are identified by their position in the feature or in the resource contents.
+	 */
+	protected String getNamePath(EObject eObject) {
+		Deque<String> segments = new ArrayDeque<>();
+		for (EObject current = eObject; current != null; current = current.eContainer()) {
+			String name = getName(current);
+			EReference containmentFeature = current.eContainmentFeature();
+			EObject container = current.eContainer();
+			String position;
+			if (container == null) {
+				Resource resource = current.eResource();
+				position = resource == null ? "" : String.valueOf(resource.getContents().indexOf(current));
+			} else if (containmentFeature.isMany()) {
+				position = String.valueOf(((List<?>) container.eGet(containmentFeature)).indexOf(current));
+			} else {
+				position = "";
+			}
+			StringBuilder segment = new StringBuilder();
+			if (containmentFeature != null) {
+				segment.append(containmentFeature.getName());
+			}
+			if (name != null) {
+				segment.append('[').append(name).append(']');
+			} else if (!position.isEmpty()) {
+				segment.append('.').append(position);
+			}
+			segments.addFirst(segment.toString());
+		}
+		return String.join("/", segments);
+	}
+	
+	/**
+	 * @param eObject
+	 * @return Object ID or value of a single-valued <code>name</code> attribute, null if the object has neither.
+	 */
+	protected String getName(EObject eObject) {
+		String id = EcoreUtil.getID(eObject);
+		if (id != null) {
+			return id;
+		}
+		EStructuralFeature nameFeature = eObject.eClass().getEStructuralFeature("name");
+		if (nameFeature instanceof EAttribute && !nameFeature.isMany()) {
+			Object name = eObject.eGet(nameFeature);
+			if (name != null) {
+				return name.toString();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Nodes documenting the same object under the same parent share the id. 
+	 * The key contains the object URI rather than the object, so the id registry doesn't retain objects of released nodes.
+	 */
+	@Override
+	public Object getKey(DocumentationNodeImpl node) {
+		if (node instanceof EObjectDocumentationNode) {
+			DocumentationNodeImpl parent = node.getParent();
+			EObject eObject = ((EObjectDocumentationNode) node).eObject;
+			return Arrays.asList(parent == null ? null : parent.getId(), eObject == null ? null : EcoreUtil.getURI(eObject).toString());
+		}
+		return node;
+	}
+
+}
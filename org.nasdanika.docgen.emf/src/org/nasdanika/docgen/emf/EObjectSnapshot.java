@@ -0,0 +1,181 @@
+package org.nasdanika.docgen.emf;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.emf.edit.provider.IItemPropertyDescriptor;
+
+/**
+ * Immutable record of {@link EObjectDocumentationNode} page data - label, icon, EClass, containment role and properties.
+ * Snapshots are captured from the live model, item providers and property descriptors in a single thread,
+ * pages are then rendered from snapshots and can be rendered concurrently.
+ * Values reference model objects, so snapshots shall be released once pages are rendered.
+ * @author Pavel Vlasov
+ *
+ */
+public final class EObjectSnapshot {
+
+	/**
+	 * Property value.
+	 * @author Pavel Vlasov
+	 *
+	 */
+	public static final class Value {
+
+		private final Object object;
+		private final String text;
+
+		public Value(Object object, String text) {
+			this.object = object;
+			this.text = text;
+		}
+
+		/**
+		 * @return Value object. Shall be used only as a key, e.g. for the object path resolver, and not be accessed during rendering.
+		 */
+		public Object getObject() {
+			return object;
+		}
+
+		/**
+		 * @return Value text.
+		 */
+		public String getText() {
+			return text;
+		}
+
+	}
+
+	/**
+	 * Property captured from {@link IItemPropertyDescriptor}.
+	 * @author Pavel Vlasov
+	 *
+	 */
+	public static final class Property {
+
+		private final String displayName;
+		private final String category;
+		private final String documentation;
+		private final boolean modelElementFeature;
+		private final boolean many;
+		private final boolean propertySource;
+		private final List<Value> values;
+
+		/**
+		 * @param displayName
+		 * @param category Category, blank for uncategorized properties.
+		 * @param documentation Feature documentation HTML or null.
+		 * @param modelElementFeature True if the property feature is an EModelElement, i.e. the property has a documentation well. 
+		 * @param many True if the value is a list.
+		 * @param propertySource True if the value was provided as a property source with an editable value.
+		 * @param values Values or null if the property has no value.
+		 */
+		public Property(String displayName, String category, String documentation, boolean modelElementFeature, boolean many, boolean propertySource, List<Value> values) {
+			this.displayName = displayName;
+			this.category = category;
+			this.documentation = documentation;
+			this.modelElementFeature = modelElementFeature;
+			this.many = many;
+			this.propertySource = propertySource;
+			this.values = values == null ? null : Collections.unmodifiableList(values);
+		}
+
+		public String getDisplayName() {
+			return displayName;
+		}
+
+		public String getCategory() {
+			return category;
+		}
+
+		public String getDocumentation() {
+			return documentation;
+		}
+
+		public boolean isModelElementFeature() {
+			return modelElementFeature;
+		}
+
+		public boolean isMany() {
+			return many;
+		}
+
+		public boolean isPropertySource() {
+			return propertySource;
+		}
+
+		/**
+		 * @return Unmodifiable list of values or null if the property has no value.
+		 */
+		public List<Value> getValues() {
+			return values;
+		}
+
+	}
+
+	private final String label;
+	private final Object icon;
+	private final String eClassName;
+	private final String eClassDocumentation;
+	private final String role;
+	private final String roleDocumentation;
+	private final List<Property> properties;
+
+	/**
+	 * @param label
+	 * @param icon
+	 * @param eClassName
+	 * @param eClassDocumentation EClass documentation HTML or null.
+	 * @param role Containment feature name or null.
+	 * @param roleDocumentation Containment feature documentation HTML or null.
+	 * @param properties Properties to render in the property descriptors order.
+	 */
+	public EObjectSnapshot(
+			String label,
+			Object icon,
+			String eClassName,
+			String eClassDocumentation,
+			String role,
+			String roleDocumentation,
+			List<Property> properties) {
+		this.label = label;
+		this.icon = icon;
+		this.eClassName = eClassName;
+		this.eClassDocumentation = eClassDocumentation;
+		this.role = role;
+		this.roleDocumentation = roleDocumentation;
+		this.properties = Collections.unmodifiableList(properties);
+	}
+
+	public String getLabel() {
+		return label;
+	}
+
+	public Object getIcon() {
+		return icon;
+	}
+
+	public String getEClassName() {
+		return eClassName;
+	}
+
+	public String getEClassDocumentation() {
+		return eClassDocumentation;
+	}
+
+	public String getRole() {
+		return role;
+	}
+
+	public String getRoleDocumentation() {
+		return roleDocumentation;
+	}
+
+	/**
+	 * @return Unmodifiable list of properties.
+	 */
+	public List<Property> getProperties() {
+		return properties;
+	}
+
+}
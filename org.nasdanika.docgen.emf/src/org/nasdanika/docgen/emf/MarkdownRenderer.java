@@ -0,0 +1,93 @@
+package org.nasdanika.docgen.emf;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.vladsch.flexmark.Extension;
+import com.vladsch.flexmark.ext.gfm.strikethrough.StrikethroughExtension;
+import com.vladsch.flexmark.ext.tables.TablesExtension;
+import com.vladsch.flexmark.html.HtmlRenderer;
+import com.vladsch.flexmark.parser.Parser;
+import com.vladsch.flexmark.util.options.MutableDataSet;
+
+/**
+ * Converts Markdown to HTML. Parser and renderer are built once per instance and are shared by all callers,
+ * instances are thread-safe and are meant to be shared by documentation nodes of the whole tree.
+ * Collects the number of render calls and the total render time.
+ * @author Pavel Vlasov
+ *
+ */
+public class MarkdownRenderer {
+
+	/**
+	 * Shared instance with tables and strikethrough extensions.
+	 */
+	public static final MarkdownRenderer INSTANCE = new MarkdownRenderer(Arrays.asList(TablesExtension.create(), StrikethroughExtension.create()));
+
+	private List<Extension> extensions;
+	private Parser parser;
+	private HtmlRenderer renderer;
+
+	private LongAdder renderCount = new LongAdder();
+	private LongAdder renderTime = new LongAdder();
+
+	/**
+	 * @param extensions Flexmark extensions to configure parser and renderer with.
+	 */
+	public MarkdownRenderer(Collection<? extends Extension> extensions) {
+		this.extensions = Collections.unmodifiableList(new ArrayList<>(extensions));
+	    MutableDataSet options = new MutableDataSet();
+	    options.set(Parser.EXTENSIONS, this.extensions);
+	    parser = Parser.builder(options).build();
+	    renderer = HtmlRenderer.builder(options).build();
+	}
+
+	/**
+	 * @return Extensions this renderer was configured with.
+	 */
+	public List<Extension> getExtensions() {
+		return extensions;
+	}
+
+	/**
+	 * Converts markdown to HTML.
+	 * @param markdown
+	 * @return
+	 */
+	public String render(String markdown) {
+		long start = System.nanoTime();
+		try {
+			return renderer.render(parser.parse(markdown));
+		} finally {
+			renderTime.add(System.nanoTime() - start);
+			renderCount.increment();
+		}
+	}
+
+	/**
+	 * @return Number of render() calls served by this renderer.
+	 */
+	public long getRenderCount() {
+		return renderCount.sum();
+	}
+
+	/**
+	 * @return Total time spent in render() calls, in nanoseconds.
+	 */
+	public long getRenderTime() {
+		return renderTime.sum();
+	}
+
+	/**
+	 * Resets render statistics.
+	 */
+	public void resetStatistics() {
+		renderCount.reset();
+		renderTime.reset();
+	}
+
+}
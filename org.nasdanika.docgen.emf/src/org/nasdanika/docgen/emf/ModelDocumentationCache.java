@@ -0,0 +1,120 @@
+package org.nasdanika.docgen.emf;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.eclipse.emf.ecore.EModelElement;
+
+/**
+ * Cache of rendered model element documentation, e.g. documentation of {@link org.eclipse.emf.ecore.EClass}es and {@link org.eclipse.emf.ecore.EStructuralFeature}s
+ * which is the same for all instances. Thread-safe.
+ * A cache registered in {@link org.nasdanika.docgen.DocumentationGenerationEngine#getServices()} is shared by documentation trees of all generations of the engine, 
+ * so documentation of a metamodel is rendered once for all models.
+ * If constructed with a positive maximum size, then the least recently used entries are evicted once the size is exceeded.
+ * @author Pavel Vlasov
+ *
+ */
+public class ModelDocumentationCache {
+
+	/**
+	 * Marker for elements without documentation - concurrent maps do not support null values.
+	 */
+	private static final String NO_DOCUMENTATION = new String();
+
+	private Map<EModelElement, String> cache;
+	private int maxSize;
+
+	private LongAdder hits = new LongAdder();
+	private LongAdder misses = new LongAdder();
+
+	/**
+	 * Creates unbounded cache.
+	 */
+	public ModelDocumentationCache() {
+		this(0);
+	}
+
+	/**
+	 * @param maxSize Maximum number of cached entries. If not positive, then cache is unbounded.
+	 */
+	@SuppressWarnings("serial")
+	public ModelDocumentationCache(int maxSize) {
+		this.maxSize = maxSize;
+		if (maxSize > 0) {
+			cache = Collections.synchronizedMap(new LinkedHashMap<EModelElement, String>(16, 0.75f, true) {
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<EModelElement, String> eldest) {
+					return size() > ModelDocumentationCache.this.maxSize;
+				}
+
+			});
+		} else {
+			cache = new ConcurrentHashMap<>();
+		}
+	}
+
+	/**
+	 * Returns cached documentation or renders it and caches the result.
+	 * @param modelElement Model element.
+	 * @param renderer Renders model element documentation to HTML. Can return null.
+	 * @return Rendered documentation or null if there is no documentation.
+	 */
+	public String get(EModelElement modelElement, Function<EModelElement, String> renderer) {
+		String ret = cache.get(modelElement);
+		if (ret == null) {
+			misses.increment();
+			// Rendering outside of the lock - concurrent misses on the same element may render twice, the result is the same.
+			ret = renderer.apply(modelElement);
+			if (ret == null) {
+				ret = NO_DOCUMENTATION;
+			}
+			cache.put(modelElement, ret);
+		} else {
+			hits.increment();
+		}
+		return ret == NO_DOCUMENTATION ? null : ret;
+	}
+
+	/**
+	 * @return Number of cached entries.
+	 */
+	public int size() {
+		return cache.size();
+	}
+
+	/**
+	 * @return Maximum number of entries or a non-positive number for unbounded caches.
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * @return Number of lookups served from the cache.
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return Number of lookups which required rendering.
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Removes all entries and resets counters.
+	 */
+	public void clear() {
+		cache.clear();
+		hits.reset();
+		misses.reset();
+	}
+
+}
@@ -0,0 +1,174 @@
+package org.nasdanika.docgen.tests;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.nasdanika.codegen.CodegenFactory;
+import org.nasdanika.codegen.Folder;
+import org.nasdanika.codegen.TextFile;
+import org.nasdanika.docgen.ContentSearchIndex;
+
+/**
+ * Tests that the content search client <code>content-search.js</code> finds pages indexed by {@link ContentSearchIndex}.
+ * The client is evaluated with stubs of AMD <code>require</code>, which serves generated index files, and of the <code>q</code> library.
+ * @author Pavel Vlasov
+ *
+ */
+public class ContentSearchIndexTests {
+
+	private static final String AMD_STUB =
+			"var modules = {};\n" +
+			"var contentSearch;\n" +
+			"var q = { defer: function() { var d = { promise: {} }; d.resolve = function(v) { d.promise.value = v; }; return d; } };\n" +
+			"function require(paths, callback, errback) {\n" +
+			"	var args = [];\n" +
+			"	for (var i = 0; i < paths.length; ++i) {\n" +
+			"		if (!modules.hasOwnProperty(paths[i])) {\n" +
+			"			errback();\n" +
+			"			return;\n" +
+			"		}\n" +
+			"		args.push(modules[paths[i]]);\n" +
+			"	}\n" +
+			"	callback.apply(null, args);\n" +
+			"}\n" +
+			"function define(deps, factory) { contentSearch = factory(require, jQuery, q); }\n";
+
+	private ScriptClient client;
+
+	@Before
+	public void setUp() throws Exception {
+		client = new ScriptClient();
+		client.eval(AMD_STUB);
+		client.eval(ScriptClient.load("resources/js/content-search.js"));
+	}
+
+	/**
+	 * Serves index files to the client.
+	 */
+	private void publish(ContentSearchIndex index) throws Exception {
+		client.eval("modules = {};");
+		for (Map.Entry<String, String> shard: index.getShardFiles().entrySet()) {
+			publish(shard.getKey(), shard.getValue());
+		}
+		publish(ContentSearchIndex.FOLDER_NAME + "/docs.js", index.getDocs());
+	}
+
+	private void publish(String path, String module) throws Exception {
+		client.eval("modules[" + JSONObject.quote("./../../" + path) + "] = " + ScriptClient.moduleJson(module) + ";");
+	}
+
+	/**
+	 * @return Paths of pages found by the client.
+	 */
+	private List<String> search(String query, int shardKeyLength) throws Exception {
+		JSONArray pages = new JSONArray((String) client.eval("JSON.stringify(contentSearch(" + JSONObject.quote(query) + ", " + shardKeyLength + ").value)"));
+		List<String> ret = new ArrayList<>();
+		for (int i = 0; i < pages.length(); ++i) {
+			ret.add(pages.getJSONArray(i).getString(0));
+		}
+		return ret;
+	}
+
+	@Test
+	public void testSearch() throws Exception {
+		ContentSearchIndex index = new ContentSearchIndex();
+		index.index(index.addDocument("a.html", "A"), "<p>Generation engine &amp; \u00fcber <b>docs</b></p>");
+		index.index(index.addDocument("b.html", "B"), "Generated icons");
+		index.index(index.addDocument("c.html", "C"), "Engine");
+		publish(index);
+
+		assertEquals(Arrays.asList("a.html", "b.html"), search("gener", 2));
+		assertEquals(Arrays.asList("a.html"), search("Gener ENGINE", 2));
+		assertEquals(Arrays.asList("a.html", "c.html"), search("engine", 2));
+		assertEquals(Arrays.asList("a.html"), search("\u00fcber", 2));
+		assertEquals(Arrays.asList("a.html"), search("docs", 2));
+		// Markup is not indexed.
+		assertEquals(Collections.emptyList(), search("amp", 2));
+		// No shard.
+		assertEquals(Collections.emptyList(), search("zzz", 2));
+		// Shorter than the shard key.
+		assertEquals(Collections.emptyList(), search("g", 2));
+	}
+
+	@Test
+	public void testPostingsRoundTrip() throws Exception {
+		ContentSearchIndex index = new ContentSearchIndex();
+		for (int i = 0; i < 3000; ++i) {
+			index.addDocument("p" + i + ".html", "Page " + i);
+		}
+		// Deltas around 5-bit digit boundaries, indexed out of order and repeatedly.
+		List<Integer> docs = Arrays.asList(0, 1, 31, 32, 33, 1023, 1024, 1056, 2999);
+		for (int doc: new int[] { 1024, 0, 2999, 1, 33, 31, 32, 1056, 1023, 33, 0 }) {
+			index.index(doc, "needle haystack");
+		}
+		publish(index);
+
+		List<String> expected = new ArrayList<>();
+		for (int doc: docs) {
+			expected.add("p" + doc + ".html");
+		}
+		assertEquals(expected, search("needle", 2));
+	}
+
+	@Test
+	public void testShardKeyLength() throws Exception {
+		ContentSearchIndex index = new ContentSearchIndex(3);
+		index.index(index.addDocument("a.html", "A"), "documentation \u00e9cole x9y");
+		publish(index);
+		assertEquals(new TreeSet<>(Arrays.asList("search/doc.js", "search/_co.js", "search/x9y.js")), index.getShardFiles().keySet());
+		assertEquals(Arrays.asList("a.html"), search("docu", 3));
+		assertEquals(Arrays.asList("a.html"), search("\u00e9co", 3));
+		assertEquals(Arrays.asList("a.html"), search("x9y", 3));
+	}
+
+	@Test
+	public void testTermLength() throws Exception {
+		ContentSearchIndex index = new ContentSearchIndex();
+		StringBuilder longTerm = new StringBuilder();
+		for (int i = 0; i < 41; ++i) {
+			longTerm.append('l');
+		}
+		index.index(index.addDocument("a.html", "A"), "a bc " + longTerm);
+		publish(index);
+		// Single character and overly long terms are not indexed.
+		assertEquals(Collections.singleton("search/bc.js"), index.getShardFiles().keySet());
+		assertEquals(Arrays.asList("a.html"), search("bc", 2));
+	}
+
+	@Test
+	public void testWrite() {
+		ContentSearchIndex index = new ContentSearchIndex();
+		index.index(index.addDocument("a.html", "A"), "alpha beta");
+
+		Folder deferredFolder = CodegenFactory.eINSTANCE.createFolder();
+		index.write(deferredFolder, true);
+		// Shards are written from getShardFiles() after work execution.
+		assertEquals(Collections.singletonList("docs.js"), getFileNames(deferredFolder));
+		assertEquals(new TreeSet<>(Arrays.asList("search/al.js", "search/be.js")), index.getShardFiles().keySet());
+
+		Folder folder = CodegenFactory.eINSTANCE.createFolder();
+		index.write(folder, false);
+		assertEquals(Arrays.asList("docs.js", "al.js", "be.js"), getFileNames(folder));
+	}
+
+	private static List<String> getFileNames(Folder docFolder) {
+		List<String> ret = new ArrayList<>();
+		Folder indexFolder = (Folder) docFolder.getChildren().get(0);
+		assertEquals(ContentSearchIndex.FOLDER_NAME, indexFolder.getName());
+		for (Object child: indexFolder.getChildren()) {
+			ret.add(((TextFile) child).getName());
+		}
+		return ret;
+	}
+
+}
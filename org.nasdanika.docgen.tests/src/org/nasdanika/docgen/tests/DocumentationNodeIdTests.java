@@ -0,0 +1,82 @@
+package org.nasdanika.docgen.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.nasdanika.docgen.DocumentationNode;
+import org.nasdanika.docgen.DocumentationNodeImpl;
+
+/**
+ * Tests of positional and strategy ids of {@link DocumentationNodeImpl}.
+ * @author Pavel Vlasov
+ *
+ */
+public class DocumentationNodeIdTests {
+
+	/**
+	 * @return Root with three children, the second child has two children.
+	 */
+	private static DocumentationNodeImpl createTree() {
+		DocumentationNodeImpl root = new DocumentationNodeImpl();
+		for (int i = 0; i < 3; ++i) {
+			root.addChild(new DocumentationNodeImpl("Child " + i, null));
+		}
+		DocumentationNodeImpl second = (DocumentationNodeImpl) root.getChildren().get(1);
+		second.addChild(new DocumentationNodeImpl("Grandchild 0", null));
+		second.addChild(new DocumentationNodeImpl("Grandchild 1", null));
+		return root;
+	}
+
+	@Test
+	public void testPositionalIds() {
+		DocumentationNodeImpl root = createTree();
+		assertNull(root.getId());
+		assertEquals("0", root.getChildren().get(0).getId());
+		assertEquals("1", root.getChildren().get(1).getId());
+		assertEquals("2", root.getChildren().get(2).getId());
+		assertEquals("1-0", root.getChildren().get(1).getChildren().get(0).getId());
+		assertEquals("1-1", root.getChildren().get(1).getChildren().get(1).getId());
+	}
+
+	@Test
+	public void testIdsDontDependOnComputationOrder() {
+		DocumentationNodeImpl root = createTree();
+		// Deepest last node first.
+		assertEquals("1-1", root.getChildren().get(1).getChildren().get(1).getId());
+		assertEquals("2", root.getChildren().get(2).getId());
+		assertEquals("0", root.getChildren().get(0).getId());
+		assertEquals("1-0", root.getChildren().get(1).getChildren().get(0).getId());
+	}
+
+	@Test
+	public void testIdsAreCached() {
+		DocumentationNodeImpl root = createTree();
+		DocumentationNode grandchild = root.getChildren().get(1).getChildren().get(1);
+		assertSame(grandchild.getId(), grandchild.getId());
+	}
+
+	@Test
+	public void testAddChildAfterIdComputation() {
+		DocumentationNodeImpl root = createTree();
+		assertEquals("2", root.getChildren().get(2).getId());
+		root.addChild(new DocumentationNodeImpl("Child 3", null));
+		assertEquals("3", root.getChildren().get(3).getId());
+		assertEquals("2", root.getChildren().get(2).getId());
+	}
+
+	@Test
+	public void testCollidingSiblingsAreSuffixedInChildrenOrder() {
+		DocumentationNodeImpl root = new DocumentationNodeImpl();
+		root.setIdStrategy(node -> "same");
+		for (int i = 0; i < 3; ++i) {
+			root.addChild(new DocumentationNodeImpl("Child " + i, null));
+		}
+		// Computing the last sibling first doesn't change which sibling gets the id without suffix.
+		assertEquals("same_2", root.getChildren().get(2).getId());
+		assertEquals("same", root.getChildren().get(0).getId());
+		assertEquals("same_1", root.getChildren().get(1).getId());
+	}
+
+}
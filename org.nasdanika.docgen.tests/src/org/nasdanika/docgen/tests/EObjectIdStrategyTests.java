@@ -0,0 +1,135 @@
+package org.nasdanika.docgen.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.eclipse.emf.common.command.BasicCommandStack;
+import org.eclipse.emf.common.util.URI;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.resource.Resource;
+import org.eclipse.emf.ecore.resource.impl.ResourceImpl;
+import org.eclipse.emf.edit.domain.AdapterFactoryEditingDomain;
+import org.eclipse.emf.edit.provider.ReflectiveItemProviderAdapterFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.nasdanika.docgen.DocumentationNode;
+import org.nasdanika.docgen.DocumentationNodeImpl;
+import org.nasdanika.docgen.IdStrategy;
+import org.nasdanika.docgen.emf.EObjectDocumentationNode;
+import org.nasdanika.docgen.emf.EObjectIdStrategy;
+
+/**
+ * Tests of {@link EObjectIdStrategy} ids of nodes documenting an Ecore model without ID attributes.
+ * @author Pavel Vlasov
+ *
+ */
+public class EObjectIdStrategyTests {
+
+	private EPackage ePackage;
+
+	@Before
+	public void setUp() {
+		AdapterFactoryEditingDomain editingDomain = new AdapterFactoryEditingDomain(new ReflectiveItemProviderAdapterFactory(), new BasicCommandStack());
+		Resource resource = new ResourceImpl(URI.createPlatformResourceURI("/test/library.ecore", true));
+		editingDomain.getResourceSet().getResources().add(resource);
+		ePackage = EcoreFactory.eINSTANCE.createEPackage();
+		ePackage.setName("library");
+		resource.getContents().add(ePackage);
+		addClass("Book");
+		addClass("Author");
+	}
+
+	private EClass addClass(String name) {
+		EClass eClass = EcoreFactory.eINSTANCE.createEClass();
+		eClass.setName(name);
+		ePackage.getEClassifiers().add(eClass);
+		return eClass;
+	}
+
+	/**
+	 * @return Ids of the package node children.
+	 */
+	private String[] getClassIds() {
+		DocumentationNodeImpl root = new DocumentationNodeImpl();
+		root.addChild(new EObjectDocumentationNode(ePackage));
+		List<DocumentationNode> classNodes = root.getChildren().get(0).getChildren();
+		String[] ret = new String[classNodes.size()];
+		for (int i = 0; i < ret.length; ++i) {
+			ret[i] = classNodes.get(i).getId();
+		}
+		return ret;
+	}
+
+	@Test
+	public void testStableAcrossGenerations() {
+		assertEquals(String.join(",", getClassIds()), String.join(",", getClassIds()));
+	}
+
+	@Test
+	public void testStableAcrossSiblingInsertion() {
+		String[] ids = getClassIds();
+		ePackage.getEClassifiers().add(0, EcoreFactory.eINSTANCE.createEClass());
+		ePackage.getEClassifiers().get(0).setName("Aardvark");
+		String[] newIds = getClassIds();
+		assertEquals(3, newIds.length);
+		assertEquals(ids[0], newIds[1]);
+		assertEquals(ids[1], newIds[2]);
+	}
+
+	@Test
+	public void testStableAcrossUnnamedSiblingInsertion() {
+		String[] ids = getClassIds();
+		ePackage.getEClassifiers().add(0, EcoreFactory.eINSTANCE.createEClass());
+		String[] newIds = getClassIds();
+		assertEquals(ids[0], newIds[1]);
+		assertEquals(ids[1], newIds[2]);
+	}
+
+	@Test
+	public void testNotPositional() {
+		for (String id: getClassIds()) {
+			assertEquals(IdStrategy.HASH_LENGTH, id.length());
+			assertTrue(Character.isLetter(id.charAt(0)));
+		}
+	}
+
+	@Test
+	public void testCollisionSuffix() {
+		addClass("Book");
+		String[] ids = getClassIds();
+		assertEquals(3, ids.length);
+		assertNotEquals(ids[0], ids[2]);
+		// The object added last gets its position as a suffix.
+		assertEquals(ids[0] + "_2", ids[2]);
+	}
+
+	@Test
+	public void testResourcePath() {
+		String path = new EObjectIdStrategy() {
+
+			String path() {
+				return getResourcePath(ePackage.eResource());
+			}
+
+		}.path();
+		assertEquals("/test/library.ecore", path);
+	}
+
+	@Test
+	public void testNamePath() {
+		String path = new EObjectIdStrategy() {
+
+			String path() {
+				return getNamePath(ePackage.getEClassifiers().get(1));
+			}
+
+		}.path();
+		assertEquals("[library]/eClassifiers[Author]", path);
+	}
+
+}
@@ -0,0 +1,56 @@
+package org.nasdanika.docgen.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.junit.Test;
+import org.nasdanika.docgen.DocumentationNodeImpl;
+import org.nasdanika.docgen.emf.EObjectDocumentationNode;
+import org.nasdanika.docgen.emf.ModelDocumentationCache;
+
+/**
+ * Tests sharing of {@link ModelDocumentationCache} between documentation trees.
+ * @author Pavel Vlasov
+ *
+ */
+public class ModelDocumentationCacheTests {
+
+	private static EObjectDocumentationNode createTree(DocumentationNodeImpl root) {
+		EPackage ePackage = EcoreFactory.eINSTANCE.createEPackage();
+		ePackage.setName("library");
+		EObjectDocumentationNode ret = new EObjectDocumentationNode(ePackage);
+		root.addChild(ret);
+		return ret;
+	}
+
+	@Test
+	public void testCachePerTree() {
+		EObjectDocumentationNode first = createTree(new DocumentationNodeImpl());
+		EObjectDocumentationNode second = createTree(new DocumentationNodeImpl());
+		assertNotSame(first.getModelDocumentationCache(), second.getModelDocumentationCache());
+	}
+
+	@Test
+	public void testSharedCache() {
+		ModelDocumentationCache cache = new ModelDocumentationCache();
+		DocumentationNodeImpl firstRoot = new DocumentationNodeImpl();
+		firstRoot.setServiceProvider(type -> type == ModelDocumentationCache.class ? cache : null);
+		DocumentationNodeImpl secondRoot = new DocumentationNodeImpl();
+		secondRoot.setServiceProvider(firstRoot.getServiceProvider());
+		EObjectDocumentationNode first = createTree(firstRoot);
+		EObjectDocumentationNode second = createTree(secondRoot);
+		assertSame(cache, first.getModelDocumentationCache());
+		assertSame(cache, second.getModelDocumentationCache());
+
+		// Metamodel documentation is rendered once for both trees.
+		first.getModelDocumentation(EcorePackage.Literals.EPACKAGE);
+		second.getModelDocumentation(EcorePackage.Literals.EPACKAGE);
+		assertEquals(1, cache.getMisses());
+		assertEquals(1, cache.getHits());
+	}
+
+}
@@ -0,0 +1,80 @@
+package org.nasdanika.docgen.tests;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+
+import org.eclipse.core.runtime.Platform;
+import org.nasdanika.docgen.GenerationManifest;
+
+/**
+ * Evaluates client scripts of the documentation site with a minimal jQuery stub, so tests can check that the clients read what the generator writes.
+ * @author Pavel Vlasov
+ *
+ */
+class ScriptClient {
+
+	private static final String JQUERY_STUB =
+			"var jQuery = {\n" +
+			"	grep: function(a, f) { var r = []; for (var i = 0; i < a.length; ++i) { if (f(a[i], i)) { r.push(a[i]); } } return r; },\n" +
+			"	map: function(a, f) { var r = []; for (var i = 0; i < a.length; ++i) { var v = f(a[i], i); if (Array.isArray(v)) { r.push.apply(r, v); } else if (v !== null && v !== undefined) { r.push(v); } } return r; },\n" +
+			"	each: function(a, f) { for (var i = 0; i < a.length; ++i) { if (f(i, a[i]) === false) { break; } } }\n" +
+			"};\n";
+
+	private ScriptEngine engine;
+
+	ScriptClient() throws ScriptException {
+		engine = new ScriptEngineManager(null).getEngineByName("nashorn");
+		engine.eval(JQUERY_STUB);
+	}
+
+	Object eval(String script) throws ScriptException {
+		return engine.eval(script);
+	}
+
+	/**
+	 * @param path Path of a script in the docgen bundle.
+	 * @return Script text.
+	 */
+	static String load(String path) throws IOException {
+		URL url = Platform.getBundle("org.nasdanika.docgen").getEntry(path);
+		try (InputStream in = url.openStream()) {
+			return new String(GenerationManifest.read(in), StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * Extracts a function declaration which closing brace is on its own line with the same indentation as the declaration. 
+	 * Braces are not counted because they may appear in regular expressions.
+	 * @param script Script text.
+	 * @param name Function name.
+	 * @return Text of the function declaration.
+	 */
+	static String extractFunction(String script, String name) {
+		int start = script.indexOf("function " + name + "(");
+		if (start == -1) {
+			throw new IllegalArgumentException("Function not found: " + name);
+		}
+		int lineStart = script.lastIndexOf('\n', start) + 1;
+		String indent = script.substring(lineStart, start);
+		int end = script.indexOf("\n" + indent + "}", start);
+		if (end == -1) {
+			throw new IllegalArgumentException("End of function not found: " + name);
+		}
+		return script.substring(start, end + indent.length() + 2);
+	}
+
+	/**
+	 * @param module AMD module text <code>define(...)</code> with a JSON object or array argument.
+	 * @return Module JSON.
+	 */
+	static String moduleJson(String module) {
+		return module.substring("define(".length(), module.length() - 1);
+	}
+
+}
@@ -0,0 +1,113 @@
+package org.nasdanika.docgen.tests;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Before;
+import org.junit.Test;
+import org.nasdanika.codegen.CodegenFactory;
+import org.nasdanika.codegen.Folder;
+import org.nasdanika.codegen.StaticText;
+import org.nasdanika.codegen.TextFile;
+import org.nasdanika.docgen.TocSearchIndex;
+
+/**
+ * Tests that the TOC search client in <code>left-panel.js</code> tokenizes queries and looks up shards the same way {@link TocSearchIndex} writes them.
+ * @author Pavel Vlasov
+ *
+ */
+public class TocSearchIndexTests {
+
+	private static final List<String> WORDS = Arrays.asList("documentation", "ab", "x9", "\u00fcber", "\u00e9cole", "\u65e5\u672c", "\ud835\udefcbeta", "9lives");
+
+	private ScriptClient client;
+
+	@Before
+	public void setUp() throws Exception {
+		String leftPanel = ScriptClient.load("resources/js/left-panel.js");
+		client = new ScriptClient();
+		client.eval("var SHARD_KEY_LENGTH = " + TocSearchIndex.SHARD_KEY_LENGTH + ";");
+		client.eval(ScriptClient.extractFunction(leftPanel, "tokenize"));
+		client.eval(ScriptClient.extractFunction(leftPanel, "shardKey"));
+		client.eval(ScriptClient.extractFunction(leftPanel, "findInShard"));
+	}
+
+	@Test
+	public void testShardKeys() throws Exception {
+		for (String word: WORDS) {
+			assertEquals(word, TocSearchIndex.shardKey(word), client.eval("shardKey(" + JSONObject.quote(word) + ")"));
+		}
+	}
+
+	@Test
+	public void testTokenization() throws Exception {
+		for (String text: new String[] { "Generate HTML Documentation", "EClass: \u00fcber-Model (v2.0)", "a b cd", "snake_case/path.to#id" }) {
+			List<String> expected = new ArrayList<>();
+			for (String token: TocSearchIndex.tokenize(text)) {
+				// The client ignores tokens shorter than the shard key.
+				if (token.length() >= TocSearchIndex.SHARD_KEY_LENGTH) {
+					expected.add(token);
+				}
+			}
+			String actual = (String) client.eval("JSON.stringify(tokenize(" + JSONObject.quote(text) + "))");
+			assertEquals(text, new JSONArray(expected).toString(), actual);
+		}
+	}
+
+	@Test
+	public void testLookup() throws Exception {
+		TocSearchIndex index = new TocSearchIndex();
+		index.add("a", "Generation Engine", Collections.emptyList());
+		index.add("b", "Generated \u00fcber Documentation", Collections.singletonList("a"));
+		index.add("c", "Icons", Collections.singletonList("a"));
+		Folder docFolder = CodegenFactory.eINSTANCE.createFolder();
+		index.write(docFolder);
+
+		assertEquals(Arrays.asList("a", "b"), lookup(docFolder, "gene"));
+		assertEquals(Arrays.asList("b"), lookup(docFolder, "\u00fcb"));
+		assertEquals(Arrays.asList("c"), lookup(docFolder, "icons"));
+		assertEquals(Collections.emptyList(), lookup(docFolder, "icx"));
+	}
+
+	/**
+	 * Looks up a token in the shard requested by the client.
+	 * @return Ids of matching nodes.
+	 */
+	private List<String> lookup(Folder docFolder, String token) throws Exception {
+		String key = (String) client.eval("shardKey(" + JSONObject.quote(token) + ")");
+		String shard = getShard(docFolder, key + ".js");
+		assertNotNull(key, shard);
+		String matches = (String) client.eval("JSON.stringify(Object.keys(findInShard(" + ScriptClient.moduleJson(shard) + ", " + JSONObject.quote(token) + ")))");
+		JSONArray ids = new JSONArray(matches);
+		List<String> ret = new ArrayList<>();
+		for (int i = 0; i < ids.length(); ++i) {
+			ret.add(ids.getString(i));
+		}
+		Collections.sort(ret);
+		return ret;
+	}
+
+	private static String getShard(Folder docFolder, String name) {
+		for (Object child: docFolder.getChildren()) {
+			if (child instanceof Folder && TocSearchIndex.FOLDER_NAME.equals(((Folder) child).getName())) {
+				for (Object shard: ((Folder) child).getChildren()) {
+					if (shard instanceof TextFile && name.equals(((TextFile) shard).getName())) {
+						StaticText content = (StaticText) ((TextFile) shard).getGenerators().get(0);
+						assertTrue(content.getContent().startsWith("define("));
+						return content.getContent();
+					}
+				}
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,107 @@
+define(['require', 'jquery', 'q'], function(require, jQuery, q) {
+	// Client of the full-text index generated by ContentSearchIndex.java
+	var BASE64 = 'ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/';
+	var SHARD_KEY_ALPHABET = 'abcdefghijklmnopqrstuvwxyz0123456789_';
+	var MAX_RESULTS = 200;
+	
+	function tokenize(text, minLength) {
+		return jQuery.grep(text.toLowerCase().split(/[\s!-\/:-@\[-`{-~]+/), function(token) {
+			return token.length >= minLength;
+		});
+	}
+	
+	function shardKey(token, shardKeyLength) {
+		var ret = '';
+		for (var i = 0; i < shardKeyLength; ++i) {
+			var c = token.charAt(i);
+			ret += SHARD_KEY_ALPHABET.indexOf(c) === -1 ? '_' : c;
+		}
+		return ret;
+	}
+	
+	// Decodes delta-encoded base64 VLQ postings to a set of page numbers.
+	function decode(postings, ret) {
+		var doc = -1;
+		var delta = 0;
+		var shift = 0;
+		for (var i = 0; i < postings.length; ++i) {
+			var digit = BASE64.indexOf(postings.charAt(i));
+			delta += (digit & 31) << shift;
+			if (digit & 32) {
+				shift += 5;
+			} else {
+				doc += delta;
+				ret[doc] = true;
+				delta = 0;
+				shift = 0;
+			}
+		}
+	}
+	
+	// Pages containing terms starting with the token.
+	function findInShard(shard, token) {
+		if (!shard) {
+			return {};
+		}
+		var terms = shard.terms;
+		var lo = 0;
+		var hi = terms.length;
+		while (lo < hi) {
+			var mid = (lo + hi) >>> 1;
+			if (terms[mid][0] < token) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		var ret = {};
+		for (var i = lo; i < terms.length && terms[i][0].lastIndexOf(token, 0) === 0; ++i) {
+			decode(terms[i][1], ret);
+		}
+		return ret;
+	}
+	
+	/**
+	 * Finds pages containing words starting with each of the query tokens.
+	 * @param query Query text.
+	 * @param shardKeyLength Shard key length from toc.js, tokens shorter than the key length are ignored.
+	 * @return Promise of an array of [page path, page title] in the tree order. 
+	 */
+	return function(query, shardKeyLength) {
+		var deferred = q.defer();
+		var tokens = tokenize(query, shardKeyLength);
+		if (tokens.length === 0) {
+			deferred.resolve([]);
+			return deferred.promise;
+		}
+		var modules = jQuery.map(tokens, function(token) { return './../../search/' + shardKey(token, shardKeyLength) + '.js'; });
+		modules.push('./../../search/docs.js');
+		require(modules, function() {
+			var shards = arguments;
+			var docs = shards[tokens.length];
+			var matches = null;
+			jQuery.each(tokens, function(idx, token) {
+				var tokenMatches = findInShard(shards[idx], token);
+				if (matches !== null) {
+					for (var doc in matches) {
+						if (!tokenMatches.hasOwnProperty(doc)) {
+							delete matches[doc];
+						}
+					}
+				} else {
+					matches = tokenMatches;
+				}
+			});
+			var ret = [];
+			for (var doc in matches) {
+				ret.push(Number(doc));
+			}
+			ret.sort(function(a, b) { return a - b; });
+			deferred.resolve(jQuery.map(ret.slice(0, MAX_RESULTS), function(doc) { return [docs[doc]]; }));
+		}, function() {
+			// Shards without terms are not written - no matches.
+			deferred.resolve([]);
+		});
+		return deferred.promise;
+	};
+});
@@ -1,29 +1,227 @@
-define(['jquery', 'knockout', 'q', './../../toc.js', './../jstree/jstree.js', 'domReady!'], function(jQuery, ko, q, toc, jstree, doc) {
+define(['require', 'jquery', 'knockout', 'q', './../../toc.js', 'jstree', 'domReady!'], function(require, jQuery, ko, q, toc, jstree, doc) {
 	var jToc = jQuery('#toc');
 	
 	var treeDeferred = q.defer();
 	
+	// Routes of the root TOC and of the loaded shards.
+	var idMap = jQuery.extend({}, toc.idMap);
+	
+	// Converts nodes of the compact TOC format - [text, icon index or -1, id, children or 1 or 0, entry point] - to jstree nodes and adds their routes to the id map.
+	// Entry point is <id>.html if omitted, 0 if the node has no content. See SiteDocumentationGeneratorSupplier.writeToc()
+	function decode(nodes) {
+		return jQuery.map(nodes, function(node) {
+			var entryPoint = node.length > 4 ? node[4] : node[2] + '.html';
+			idMap[node[2]] = entryPoint ? '#router/doc-content/' + entryPoint : '#';
+			var ret = { text: node[0], id: node[2] };
+			if (node[1] >= 0) {
+				ret.icon = toc.icons[node[1]];
+			}
+			if (node[3] === 1) {
+				ret.children = true;
+			} else if (jQuery.isArray(node[3])) {
+				ret.children = decode(node[3]);
+			}
+			return ret;
+		});
+	}
+	
+	// Prebuilt label index, see TocSearchIndex.java
+	var SHARD_KEY_LENGTH = 2;
+	var MAX_MATCHES = 1000;
+	
+	function tokenize(text) {
+		return jQuery.grep(text.toLowerCase().split(/[\s!-\/:-@\[-`{-~]+/), function(token) {
+			return token.length >= SHARD_KEY_LENGTH;
+		});
+	}
+	
+	function shardKey(token) {
+		var ret = '';
+		for (var i = 0; i < SHARD_KEY_LENGTH; ++i) {
+			var c = token.charAt(i);
+			ret += /[a-z0-9]/.test(c) ? c : '_' + token.charCodeAt(i).toString(16);
+		}
+		return ret;
+	}
+	
+	// Ids of nodes with words starting with the token, mapped to ancestor ids.
+	function findInShard(shard, token) {
+		var words = shard.words;
+		var lo = 0;
+		var hi = words.length;
+		while (lo < hi) {
+			var mid = (lo + hi) >>> 1;
+			if (words[mid][0] < token) {
+				lo = mid + 1;
+			} else {
+				hi = mid;
+			}
+		}
+		var ret = {};
+		for (var i = lo; i < words.length && words[i][0].lastIndexOf(token, 0) === 0; ++i) {
+			jQuery.each(words[i][1], function(idx, nodeIndex) {
+				var node = shard.nodes[nodeIndex];
+				ret[node[0]] = node[2];
+			});
+		}
+		return ret;
+	}
+	
+	// Loads index shards for query tokens and passes ids of nodes to load and open to the callback.
+	function searchIndex(str, callback) {
+		var tokens = tokenize(str);
+		if (tokens.length === 0) {
+			callback([]);
+			return;
+		}
+		require(jQuery.map(tokens, function(token) { return './../../toc-search/' + shardKey(token) + '.js'; }), function() {
+			var shards = arguments;
+			var matches = null;
+			jQuery.each(tokens, function(idx, token) {
+				var tokenMatches = findInShard(shards[idx], token);
+				if (matches !== null) {
+					for (var id in matches) {
+						if (!tokenMatches.hasOwnProperty(id)) {
+							delete matches[id];
+						}
+					}
+				} else {
+					matches = tokenMatches;
+				}
+			});
+			var toLoad = [];
+			var seen = {};
+			var count = 0;
+			for (var id in matches) {
+				if (++count > MAX_MATCHES) {
+					break;
+				}
+				jQuery.each(matches[id], function(idx, ancestorId) {
+					if (!seen[ancestorId]) {
+						seen[ancestorId] = true;
+						toLoad.push(ancestorId);
+					}
+				});
+			}
+			callback(toLoad);
+		}, function() {
+			// No shard for a token - no matches.
+			callback([]);
+		});
+	}
+	
+	// Each query token shall be a prefix of a word of the node text.
+	function matchNode(str, node) {
+		var words = tokenize(node.text);
+		var tokens = tokenize(str);
+		if (tokens.length === 0) {
+			return false;
+		}
+		return jQuery.grep(tokens, function(token) {
+			return jQuery.grep(words, function(word) { return word.lastIndexOf(token, 0) === 0; }).length > 0;
+		}).length === tokens.length;
+	}
+	
 	jToc.bind("ready.jstree", function(e, data) {
 		treeDeferred.resolve(jToc);	
 	});
 	
 	jToc.jstree({
 		'core': { 
-			'data': toc.tree 
-			},
+			'data': function(node, callback) {
+				if (node.id === '#') {
+					callback.call(this, toc.compact ? decode(toc.tree) : toc.tree);
+				} else {
+					// Children of nodes with "children": true are stored in TOC shards.
+					var tree = this;
+					require(['./../../toc/' + node.id + '.js'], function(shard) {
+						if (toc.compact) {
+							callback.call(tree, decode(shard.tree));
+						} else {
+							jQuery.extend(idMap, shard.idMap);
+							callback.call(tree, shard.tree);
+						}
+					});
+				}
+			} 
+		},
 		'plugins' : ['search'],
 		'search' : {
 			show_only_matches : true,
-			show_only_matches_children : true
+			show_only_matches_children : true,
+			ajax : toc.searchIndex ? searchIndex : false,
+			search_callback : toc.searchIndex ? matchNode : false
 		}
 	}).bind("changed.jstree", function(e, data) {
 		if (data.selected.length>0) {
-			window.location = toc.idMap[data.selected[0]];
+			window.location = idMap[data.selected[0]];
 		}
 	});
 
 	var leftOverlay = jQuery("#left-overlay");		
 	var jTocSearch = jQuery('#toc-search');
+	var searchContainer = jQuery('div#search-container');
+	
+	// Query and results of the TOC label search and of the full-text search, see ContentSearchIndex.java
+	// Results are arrays of [route, title], null until available.
+	var searchState = null;
+	
+	// Lists pages with matching labels followed by other pages matching the query in the full-text index instead of the tree.
+	function showSearchResults() {
+		if (searchState === null || searchState.labels === null || searchState.pages === null) {
+			return;
+		}
+		var searchResults = searchContainer.children('ol').empty();
+		var listed = {};
+		jQuery.each(searchState.labels.concat(searchState.pages), function(idx, result) {
+			if (!listed[result[0]]) {
+				listed[result[0]] = true;
+				searchResults.append(jQuery('<li>').append(jQuery('<a>').attr('href', result[0]).text(result[1])));
+			}
+		});
+		if (searchResults.children().length === 0) {
+			searchResults.append(jQuery('<li>').text('No matches'));
+		}
+		jToc.hide();
+		searchContainer.show();
+	}
+	
+	jToc.bind("search.jstree", function(e, data) {
+		if (searchState !== null && searchState.query === data.str) {
+			var tree = jToc.jstree(true);
+			searchState.labels = jQuery.map(data.res, function(id) {
+				var route = idMap[id];
+				return route && route !== '#' ? [[route, tree.get_node(id).text]] : null;
+			});
+			showSearchResults();
+		}
+	});
+	
+	function search(v) {
+		if (jQuery.trim(v).length === 0) {
+			searchState = null;
+			jToc.jstree(true).clear_search();
+			searchContainer.hide();
+			jToc.show();
+			return;
+		}
+		var state = searchState = { query: v, labels: null, pages: null };
+		if (toc.searchIndex && tokenize(v).length === 0) {
+			state.labels = [];
+		} else {
+			jToc.jstree(true).search(v);
+		}
+		require(['./content-search.js'], function(searchContent) {
+			searchContent(v, toc.contentSearch.shardKeyLength).then(function(pages) {
+				if (searchState !== state) {
+					return; // Stale results.
+				}
+				state.pages = jQuery.map(pages, function(page) { return [['#router/doc-content/' + page[0], page[1]]]; });
+				showSearchResults();
+			});
+		});
+	}
+	
 	var to = false;	
 	jTocSearch.keyup(function () {
 		if (to) { 
@@ -31,7 +229,15 @@ define(['jquery', 'knockout', 'q', './../../toc.js', './../jstree/jstree.js', 'd
 		}
 		to = setTimeout(function () {
 			var v = jTocSearch.val();
-			jToc.jstree(true).search(v);
+			if (toc.contentSearch) {
+				search(v);
+				return;
+			}
+			if (toc.searchIndex && tokenize(v).length === 0) {
+				jToc.jstree(true).clear_search();
+			} else {
+				jToc.jstree(true).search(v);
+			}
 		}, 250);
 	});	
 		
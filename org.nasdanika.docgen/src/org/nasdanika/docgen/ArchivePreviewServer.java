@@ -0,0 +1,233 @@
+package org.nasdanika.docgen;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URLConnection;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Minimal HTTP server for local preview of documentation archives written by {@link BaseDocumentationGeneratorSupplier#writeArchive(OutputStream)}.
+ * Serves archive entries directly from the archive, without extraction. Supports GET and HEAD requests, one request per connection.
+ * Listens on the loopback address only. Can be started from the command line: <code>ArchivePreviewServer &lt;archive&gt; [port]</code>.
+ * @author Pavel Vlasov
+ *
+ */
+public class ArchivePreviewServer implements AutoCloseable {
+
+	/**
+	 * Default port.
+	 */
+	public static final int DEFAULT_PORT = 8080;
+
+	private static final Map<String, String> CONTENT_TYPES = new HashMap<>();
+
+	static {
+		CONTENT_TYPES.put("html", "text/html; charset=UTF-8");
+		CONTENT_TYPES.put("htm", "text/html; charset=UTF-8");
+		CONTENT_TYPES.put("js", "application/javascript; charset=UTF-8");
+		CONTENT_TYPES.put("css", "text/css; charset=UTF-8");
+		CONTENT_TYPES.put("json", "application/json; charset=UTF-8");
+		CONTENT_TYPES.put("txt", "text/plain; charset=UTF-8");
+		CONTENT_TYPES.put("svg", "image/svg+xml");
+		CONTENT_TYPES.put("png", "image/png");
+		CONTENT_TYPES.put("gif", "image/gif");
+		CONTENT_TYPES.put("jpg", "image/jpeg");
+		CONTENT_TYPES.put("jpeg", "image/jpeg");
+		CONTENT_TYPES.put("ico", "image/x-icon");
+		CONTENT_TYPES.put("woff", "font/woff");
+		CONTENT_TYPES.put("woff2", "font/woff2");
+		CONTENT_TYPES.put("ttf", "font/ttf");
+		CONTENT_TYPES.put("eot", "application/vnd.ms-fontobject");
+	}
+
+	private ZipFile archive;
+	private ServerSocket serverSocket;
+	private ExecutorService executor;
+
+	/**
+	 * Opens the archive and starts serving it.
+	 * @param archive Archive file.
+	 * @param port Port, 0 to use any free port.
+	 * @throws IOException
+	 */
+	public ArchivePreviewServer(File archive, int port) throws IOException {
+		this.archive = new ZipFile(archive);
+		serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+		executor = Executors.newCachedThreadPool(r -> {
+			Thread thread = new Thread(r, "Archive preview server");
+			thread.setDaemon(true);
+			return thread;
+		});
+		executor.execute(this::accept);
+	}
+
+	/**
+	 * @return Port the server listens on.
+	 */
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * @return Server URL.
+	 */
+	public String getUrl() {
+		return "http://localhost:" + getPort() + "/";
+	}
+
+	private void accept() {
+		while (!serverSocket.isClosed()) {
+			try {
+				Socket socket = serverSocket.accept();
+				executor.execute(() -> handle(socket));
+			} catch (IOException e) {
+				if (!serverSocket.isClosed()) {
+					e.printStackTrace();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Serves a single request and closes the connection.
+	 * @param socket
+	 */
+	protected void handle(Socket socket) {
+		try (Socket s = socket) {
+			BufferedReader reader = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.ISO_8859_1));
+			String requestLine = reader.readLine();
+			// Headers are not used.
+			String header;
+			do {
+				header = reader.readLine();
+			} while (header != null && !header.isEmpty());
+
+			OutputStream out = s.getOutputStream();
+			String[] request = requestLine == null ? new String[0] : requestLine.split(" ");
+			if (request.length < 2) {
+				respond(out, "400 Bad Request", null, false);
+				return;
+			}
+			boolean head = "HEAD".equals(request[0]);
+			if (!head && !"GET".equals(request[0])) {
+				respond(out, "405 Method Not Allowed", null, false);
+				return;
+			}
+			ZipEntry entry = getEntry(request[1]);
+			if (entry == null) {
+				respond(out, "404 Not Found", null, head);
+			} else {
+				respond(out, "200 OK", entry, head);
+			}
+		} catch (IOException e) {
+			// Client disconnected.
+		}
+	}
+
+	/**
+	 * @param target Request target.
+	 * @return Archive entry or null if there is no entry for the target.
+	 * Targets ending with a slash are resolved to <code>index.html</code>.
+	 * @throws IOException
+	 */
+	protected ZipEntry getEntry(String target) throws IOException {
+		int queryIdx = target.indexOf('?');
+		if (queryIdx != -1) {
+			target = target.substring(0, queryIdx);
+		}
+		String path = URLDecoder.decode(target.replace("+", "%2B"), StandardCharsets.UTF_8.name());
+		while (path.startsWith("/")) {
+			path = path.substring(1);
+		}
+		if (path.isEmpty() || path.endsWith("/")) {
+			path += "index.html";
+		}
+		ZipEntry ret = archive.getEntry(path);
+		return ret == null || ret.isDirectory() ? null : ret;
+	}
+
+	private void respond(OutputStream out, String status, ZipEntry entry, boolean head) throws IOException {
+		StringBuilder headers = new StringBuilder("HTTP/1.1 ").append(status).append("\r\n");
+		if (entry == null) {
+			byte[] body = status.getBytes(StandardCharsets.UTF_8);
+			headers.append("Content-Type: text/plain; charset=UTF-8\r\n");
+			headers.append("Content-Length: ").append(body.length).append("\r\n");
+			headers.append("Connection: close\r\n\r\n");
+			out.write(headers.toString().getBytes(StandardCharsets.ISO_8859_1));
+			if (!head) {
+				out.write(body);
+			}
+		} else {
+			headers.append("Content-Type: ").append(getContentType(entry.getName())).append("\r\n");
+			if (entry.getSize() >= 0) {
+				headers.append("Content-Length: ").append(entry.getSize()).append("\r\n");
+			}
+			headers.append("Connection: close\r\n\r\n");
+			out.write(headers.toString().getBytes(StandardCharsets.ISO_8859_1));
+			if (!head) {
+				try (InputStream in = archive.getInputStream(entry)) {
+					byte[] buf = new byte[8192];
+					int l;
+					while ((l = in.read(buf)) != -1) {
+						out.write(buf, 0, l);
+					}
+				}
+			}
+		}
+		out.flush();
+	}
+
+	/**
+	 * @param name Entry name.
+	 * @return Content type.
+	 */
+	protected String getContentType(String name) {
+		int idx = name.lastIndexOf('.');
+		String ret = idx == -1 ? null : CONTENT_TYPES.get(name.substring(idx + 1).toLowerCase());
+		if (ret == null) {
+			ret = URLConnection.guessContentTypeFromName(name);
+		}
+		return ret == null ? "application/octet-stream" : ret;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			serverSocket.close();
+			executor.shutdown();
+		} finally {
+			archive.close();
+		}
+	}
+
+	/**
+	 * Serves an archive until Enter is pressed.
+	 * @param args Archive path and optional port.
+	 * @throws IOException
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("Usage: ArchivePreviewServer <archive> [port]");
+			System.exit(1);
+		}
+		try (ArchivePreviewServer server = new ArchivePreviewServer(new File(args[0]), args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_PORT)) {
+			System.out.println("Serving " + args[0] + " at " + server.getUrl() + ", press Enter to stop");
+			System.in.read();
+		}
+	}
+
+}
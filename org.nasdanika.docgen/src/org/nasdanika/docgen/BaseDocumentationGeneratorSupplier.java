@@ -1,16 +1,65 @@
 package org.nasdanika.docgen;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Platform;
+import org.eclipse.core.runtime.Status;
+import org.nasdanika.codegen.BinaryFile;
+import org.nasdanika.codegen.BundleResource;
 import org.nasdanika.codegen.CodegenFactory;
 import org.nasdanika.codegen.Folder;
 import org.nasdanika.codegen.Generator;
 import org.nasdanika.codegen.Project;
 import org.nasdanika.codegen.ReconcileAction;
+import org.nasdanika.codegen.StaticBytes;
+import org.nasdanika.codegen.StaticText;
+import org.nasdanika.codegen.TextFile;
 import org.nasdanika.codegen.Workspace;
+import org.osgi.framework.Bundle;
 
 /**
  * Generates target project and folder. Subclasses shall override buildGenerator() method.
+ * In the incremental mode files which content hash is the same as recorded in the {@link GenerationManifest} of the previous generation
+ * and which exist in the workspace are not written. Files with static content are removed from the generation model, 
+ * files with deferred content are skipped by the {@link #getOverwriteFilter() overwrite filter} during work execution.
+ * Compressed siblings are recorded in the manifest with a hash derived from the source hash, so they are written and deleted together with their sources.
+ * Files listed in the previous manifest which are not generated anymore are deleted and the manifest is written by {@link #finish(Predicate, IProgressMonitor)}
+ * after the work execution. Files aggregating content rendered during work execution, e.g. the content search index, are {@link #addFinalFiles(Supplier) registered} 
+ * by subclasses and written by the same method before the manifest.
  * @author Pavel Vlasov
  *
  */
@@ -18,16 +67,429 @@ public class BaseDocumentationGeneratorSupplier implements Supplier<Generator<?>
 	
 	private String projectName;
 	private String folderPath;
+	private boolean incremental;
+	private GenerationMetrics metrics;
+	private Precompressor precompressor;
+	private boolean archive;
+	
+	/**
+	 * Prefix of manifest hashes of compressed siblings, followed by the source hash.
+	 */
+	private static final String COMPRESSED_HASH_PREFIX = "gz:";
+	
+	// Generation state of the last get() call used during work execution.
+	private GenerationManifest previousManifest;
+	private GenerationManifest currentManifest;
+	// File path -> shared deferred content.
+	private Map<String, DeferredContent> deferredContents = new ConcurrentHashMap<>();
+	// Compressed sibling path -> source file path.
+	private Map<String, String> compressedSources = new ConcurrentHashMap<>();
+	// Compressed sibling path -> submission of static source content to the precompressor. Submitted once unchanged siblings are removed from the model.
+	private Map<String, Runnable> pendingCompressions = new LinkedHashMap<>();
+	// Deferred content which was retrieved last. Its value is retained until content of another file is retrieved.
+	private AtomicReference<DeferredContent> retainedContent = new AtomicReference<>();
+	// Suppliers of files written after work execution.
+	private List<Supplier<Map<String, String>>> finalFiles = new ArrayList<>();
+	// Additional overwrite filters of the generation model.
+	private List<Predicate<Object>> overwriteFilters = new ArrayList<>();
+	
+	// Bundle id, bundle modification time, bundle resource name and paths -> entry hashes. Bundle content changes only when the bundle is updated.
+	private static final Map<List<Object>, Map<String, String>> BUNDLE_RESOURCE_HASHES = new ConcurrentHashMap<>();
+	
+	/**
+	 * Deferred content of a file shared by the file generator, the overwrite filter, and the generator of the compressed sibling. 
+	 * Content is produced once and listeners are notified once, e.g. to record the content hash in the manifest or to compress content.
+	 * The produced value is memoized until {@link #discard()}, so repeated reads by the file generator do not render the content again. 
+	 * Files are written one after another, so the value is discarded when content of another file is retrieved, or by the overwrite filter if the file is not written.
+	 * If the value is read after it was discarded, it is produced again without notifying listeners.
+	 */
+	private class DeferredContent {
+		
+		private Supplier<String> producer;
+		private List<Consumer<String>> listeners = new ArrayList<>();
+		private String value;
+		private boolean retained;
+		private boolean produced;
+		
+		DeferredContent(Supplier<String> producer) {
+			this.producer = producer;
+		}
+		
+		/**
+		 * Adds listener. Shall be called when the generation model is built.
+		 */
+		void addListener(Consumer<String> listener) {
+			listeners.add(listener);
+		}
+		
+		/**
+		 * @return Memoized value, produces it if it is not retained.
+		 */
+		String get() {
+			String ret;
+			synchronized (this) {
+				if (!retained) {
+					value = producer.get();
+					retained = true;
+					if (!produced) {
+						produced = true;
+						for (Consumer<String> listener: listeners) {
+							listener.accept(value);
+						}
+					}
+				}
+				ret = value;
+			}
+			DeferredContent previous = retainedContent.getAndSet(this);
+			if (previous != null && previous != this) {
+				previous.discard();
+			}
+			return ret;
+		}
+		
+		/**
+		 * Produces content if it has never been produced, e.g. to compute its hash.
+		 */
+		void prefetch() {
+			synchronized (this) {
+				if (produced) {
+					return;
+				}
+			}
+			get();
+		}
+		
+		/**
+		 * Releases the memoized value.
+		 */
+		synchronized void discard() {
+			value = null;
+			retained = false;
+		}
+		
+	}
 
 	public BaseDocumentationGeneratorSupplier(String projectName, String folderPath) {
 		this.projectName = projectName;
 		this.folderPath = folderPath;
 	}
 
+	public String getProjectName() {
+		return projectName;
+	}
+
+	/**
+	 * @return Documentation folder path relative to the project.
+	 */
+	public String getFolderPath() {
+		return folderPath;
+	}
+
+	/**
+	 * @param incremental If true, unchanged files are not written and stale files are deleted.
+	 */
+	public void setIncremental(boolean incremental) {
+		this.incremental = incremental;
+	}
+
+	public boolean isIncremental() {
+		return incremental;
+	}
+	
+	/**
+	 * Predicate to combine with the overwrite predicate during work execution of the generation model built by the last {@link #get()} call.
+	 * In the incremental mode it returns false for existing files with deferred content, and their compressed siblings, which hash is the same as in the previous manifest. 
+	 * Content is produced by the predicate if it hasn't been produced yet and is then reused by the file generator, i.e. it is produced once.
+	 * Resources are also filtered by filters {@link #addOverwriteFilter(Predicate) added} while the model was built.
+	 * {@link DocumentationGenerationEngine} combines the filter with its overwrite predicate.
+	 * @return Overwrite filter. 
+	 */
+	public Predicate<Object> getOverwriteFilter() {
+		List<Predicate<Object>> filters = new ArrayList<>(overwriteFilters);
+		return obj -> {
+			for (Predicate<Object> filter: filters) {
+				if (!filter.test(obj)) {
+					return false;
+				}
+			}
+			if (obj instanceof IFile && currentManifest != null) {
+				String path = getDocumentationPath((IFile) obj);
+				String sourcePath = path == null ? null : compressedSources.getOrDefault(path, path);
+				DeferredContent deferredContent = sourcePath == null ? null : deferredContents.get(sourcePath);
+				if (deferredContent != null) {
+					String hash = currentManifest.get(path);
+					if (hash == null || hash.isEmpty()) {
+						deferredContent.prefetch();
+						hash = currentManifest.get(path);
+					}
+					if (hash.equals(previousManifest.get(path))) {
+						if (path.equals(sourcePath)) {
+							deferredContent.discard();
+						}
+						return false;
+					}
+				}
+			}
+			return true;
+		};
+	}
+	
+	/**
+	 * @param file
+	 * @return File path relative to the documentation folder or null if the file is not in the documentation folder.
+	 */
+	protected String getDocumentationPath(IFile file) {
+		IPath folderPath = getTargetFolder().getFullPath();
+		return folderPath.isPrefixOf(file.getFullPath()) ? file.getFullPath().makeRelativeTo(folderPath).toString() : null;
+	}
+	
+	/**
+	 * Registers files which content is known only after the work of the generation model was executed, e.g. files aggregating content rendered during work execution.
+	 * Shall be called from {@link #buildGenerator(Workspace, Project, Folder)}. The supplier is called by {@link #finish(Predicate, IProgressMonitor)}, i.e. after all other files were generated, 
+	 * or after all other entries were written in the archive mode.
+	 * @param files Supplier of file paths relative to the documentation folder mapped to file content.
+	 */
+	protected void addFinalFiles(Supplier<Map<String, String>> files) {
+		finalFiles.add(files);
+	}
+	
+	/**
+	 * Adds overwrite filter of resources of the generation model, e.g. of resources outside of the documentation folder. 
+	 * Shall be called from {@link #buildGenerator(Workspace, Project, Folder)}. 
+	 * @param filter Returns false for existing resources which shall not be overwritten. Called during work execution.
+	 */
+	protected void addOverwriteFilter(Predicate<Object> filter) {
+		overwriteFilters.add(filter);
+	}
+	
+	/**
+	 * Calls {@link #finish(Predicate, IProgressMonitor)} without overwrite predicate.
+	 * @param monitor Progress monitor, can be null.
+	 * @throws CoreException
+	 */
+	public void finish(IProgressMonitor monitor) throws CoreException {
+		finish(null, monitor);
+	}
+	
+	/**
+	 * Completes generation after the work of the generation model built by the last {@link #get()} call was executed. 
+	 * Writes {@link #addFinalFiles(Supplier) final files}, their compressed siblings, and the list of precompressed files if the precompressor is set.
+	 * In the incremental mode unchanged final files are not written, stale files - files listed in the previous manifest which were not generated - are deleted, 
+	 * and the manifest with content hashes of this generation, including hashes of deferred content and final files, is written. 
+	 * Shall be called in the workspace operation which executed the work. {@link DocumentationGenerationEngine} calls this method. 
+	 * @param overwritePredicate Decides whether an existing final file shall be overwritten, null to overwrite all.
+	 * @param monitor Progress monitor, can be null.
+	 * @throws CoreException
+	 */
+	public void finish(Predicate<Object> overwritePredicate, IProgressMonitor monitor) throws CoreException {
+		long start = System.nanoTime();
+		try {
+			if (!finalFiles.isEmpty() || precompressor != null) {
+				writeFinalFiles(overwritePredicate, monitor);
+				if (metrics != null) {
+					metrics.record("final", null, System.nanoTime() - start);
+				}
+			}
+			if (currentManifest == null) {
+				return;
+			}
+			start = System.nanoTime();
+			IFolder targetFolder = getTargetFolder();
+			for (String path: previousManifest.getPaths()) {
+				if (currentManifest.get(path) == null) {
+					IFile staleFile = targetFolder.getFile(path);
+					if (staleFile.exists()) {
+						try {
+							staleFile.delete(true, monitor);
+						} catch (CoreException e) {
+							Activator.getDefault().getLog().log(new Status(Status.WARNING, Activator.PLUGIN_ID, "Unable to delete stale file: "+staleFile, e));
+						}
+					}
+				}
+			}
+			IFile manifestFile = targetFolder.getFile(GenerationManifest.FILE_NAME);
+			ByteArrayInputStream manifestContent = new ByteArrayInputStream(currentManifest.toString().getBytes(StandardCharsets.UTF_8));
+			if (manifestFile.exists()) {
+				manifestFile.setContents(manifestContent, true, false, monitor);
+			} else {
+				manifestFile.create(manifestContent, true, monitor);
+			}
+			if (metrics != null) {
+				metrics.record("manifest", null, System.nanoTime() - start);
+			}
+		} finally {
+			previousManifest = null;
+			currentManifest = null;
+			deferredContents.clear();
+			compressedSources.clear();
+			retainedContent.set(null);
+			finalFiles.clear();
+		}
+	}
+	
+	/**
+	 * @return Content of final files sorted by path.
+	 */
+	private Map<String, String> getFinalFiles() {
+		Map<String, String> ret = new TreeMap<>();
+		for (Supplier<Map<String, String>> files: finalFiles) {
+			ret.putAll(files.get());
+		}
+		return ret;
+	}
+	
+	/**
+	 * Writes final files, their compressed siblings, and the list of precompressed files.
+	 */
+	private void writeFinalFiles(Predicate<Object> overwritePredicate, IProgressMonitor monitor) throws CoreException {
+		for (Entry<String, String> fe: getFinalFiles().entrySet()) {
+			String path = fe.getKey();
+			byte[] content = (fe.getValue() == null ? "" : fe.getValue()).getBytes(StandardCharsets.UTF_8);
+			String hash = GenerationManifest.hash(content);
+			writeFinalFile(path, hash, () -> content, overwritePredicate, monitor);
+			if (precompressor != null && precompressor.isCompressible(path) && content.length >= precompressor.getThreshold()) {
+				String siblingPath = path + Precompressor.EXTENSION;
+				compressedSources.put(siblingPath, path);
+				writeFinalFile(siblingPath, COMPRESSED_HASH_PREFIX + hash, () -> precompressor.compress(content), overwritePredicate, monitor);
+			}
+		}
+		if (precompressor != null) {
+			byte[] precompressedList = String.join("\n", new TreeSet<>(compressedSources.keySet())).getBytes(StandardCharsets.UTF_8);
+			writeFinalFile(Precompressor.FILE_NAME, GenerationManifest.hash(precompressedList), () -> precompressedList, overwritePredicate, monitor);
+		}
+	}
+	
+	/**
+	 * Writes a file created after work execution and records its hash in the current manifest in the incremental mode. 
+	 * Unchanged files are not written. Existing files which are not to be overwritten are recorded with an empty hash, so they are retained and written next time.
+	 * @param path File path relative to the documentation folder.
+	 * @param hash Content hash.
+	 * @param content Content supplier, called only if the file is written.
+	 */
+	private void writeFinalFile(String path, String hash, Supplier<byte[]> content, Predicate<Object> overwritePredicate, IProgressMonitor monitor) throws CoreException {
+		IFile file = getTargetFolder().getFile(path);
+		if (file.exists()) {
+			if (currentManifest != null && hash.equals(previousManifest.get(path))) {
+				currentManifest.put(path, hash);
+				return;
+			}
+			if (overwritePredicate != null && !overwritePredicate.test(file)) {
+				if (currentManifest != null) {
+					currentManifest.put(path, "");
+				}
+				return;
+			}
+			file.setContents(new ByteArrayInputStream(content.get()), true, false, monitor);
+		} else {
+			createFolder(file.getParent(), monitor);
+			file.create(new ByteArrayInputStream(content.get()), true, monitor);
+		}
+		if (currentManifest != null) {
+			currentManifest.put(path, hash);
+		}
+	}
+	
+	private static void createFolder(IContainer container, IProgressMonitor monitor) throws CoreException {
+		if (container instanceof IFolder && !container.exists()) {
+			createFolder(container.getParent(), monitor);
+			((IFolder) container).create(true, true, monitor);
+		}
+	}
+
+	/**
+	 * @param metrics If not null, generation phases, files, and bytes are recorded to the metrics, which are also written to 
+	 * {@link GenerationMetrics#FILE_NAME} in the documentation folder after all other files are generated.
+	 */
+	public void setMetrics(GenerationMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	public GenerationMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * @param precompressor If not null, gzip-compressed siblings of generated files are added to the generation model for static hosting and 
+	 * the list of them is written to {@link Precompressor#FILE_NAME} in the documentation folder. 
+	 * Siblings of files with deferred content are always generated because content size is not known when the model is built, 
+	 * siblings of other files are generated if content is not smaller than the precompressor threshold.
+	 * A new precompressor shall be set for each generation.
+	 */
+	public void setPrecompressor(Precompressor precompressor) {
+		this.precompressor = precompressor;
+	}
+
+	public Precompressor getPrecompressor() {
+		return precompressor;
+	}
+
+	/**
+	 * Executes action and records its duration if metrics are set.
+	 * @param phase Phase name.
+	 * @param type Type within the phase, can be null.
+	 * @param action
+	 * @return Action result.
+	 */
+	protected <T> T time(String phase, String type, Supplier<T> action) {
+		return metrics == null ? action.get() : metrics.time(phase, type, action);
+	}
+
+	/**
+	 * @param path File path relative to the documentation folder.
+	 * @return Metrics type of content rendered for the file during work execution or null. This implementation returns null.
+	 */
+	protected String getRenderType(String path) {
+		return null;
+	}
+
 	@Override
 	public Generator<?> get() {
 		Workspace workspace = CodegenFactory.eINSTANCE.createWorkspace();
+		finalFiles.clear();
+		overwriteFilters.clear();
+		Folder docFolder = buildModel(workspace);
+
+		previousManifest = null;
+		currentManifest = null;
+		deferredContents.clear();
+		compressedSources.clear();
+		pendingCompressions.clear();
+		retainedContent.set(null);
+		if (incremental || precompressor != null) {
+			shareDeferredContent(docFolder, "");
+		}
+		
+		if (precompressor != null) {
+			precompressor.setMetrics(metrics);
+			// The list of precompressed files is written by finish() together with compressed siblings of final files.
+			precompress(docFolder, "");
+		}
+		
+		if (incremental) {
+			time("manifest", null, () -> {
+				try {
+					applyManifest(docFolder);
+				} catch (CoreException | IOException e) {
+					throw new IllegalStateException("Could not apply generation manifest: "+e, e);
+				}
+				return null;
+			});
+		}
 		
+		// Static content is compressed in parallel with work execution only for siblings which will be written.
+		pendingCompressions.values().forEach(Runnable::run);
+		pendingCompressions.clear();
+		
+		addMetrics(docFolder);
+		return workspace;
+	}
+	
+	/**
+	 * Creates the target project and the documentation folder in the workspace and builds the documentation folder generators. 
+	 * @param workspace
+	 * @return Documentation folder.
+	 */
+	private Folder buildModel(Workspace workspace) {
 		Project project = CodegenFactory.eINSTANCE.createProject();
 		project.setName(projectName);
 		workspace.getElements().add(project);
@@ -37,9 +499,147 @@ public class BaseDocumentationGeneratorSupplier implements Supplier<Generator<?>
 		docFolder.setReconcileAction(ReconcileAction.OVERWRITE);
 		project.getResources().add(docFolder);
 		
-		buildGenerator(workspace, project, docFolder);
+		time("build", null, () -> {
+			buildGenerator(workspace, project, docFolder);
+			return null;
+		});
+		return docFolder;
+	}
+	
+	/**
+	 * Instruments the documentation folder and adds the metrics file if metrics are set. 
+	 * @param docFolder
+	 */
+	private void addMetrics(Folder docFolder) {
+		if (metrics != null) {
+			instrument(docFolder, "");
+			TextFile metricsFile = CodegenFactory.eINSTANCE.createTextFile();
+			metricsFile.setName(GenerationMetrics.FILE_NAME);
+			metricsFile.setReconcileAction(ReconcileAction.OVERWRITE);
+			metricsFile.getGenerators().add(new DeferredText(metrics::toString));
+			docFolder.getChildren().add(metricsFile);
+		}
+	}
+	
+	/**
+	 * Builds the generation model and streams files of the documentation folder to a zip archive in one pass, bypassing the workspace. 
+	 * Deferred content is produced when its entry is written, so only one page is in memory at a time. Final files are written after all other entries.
+	 * Entry paths are relative to the documentation folder, i.e. <code>index.html</code> is in the archive root.
+	 * Incremental mode and precompression are not applied. Resources outside of the documentation folder are not written.
+	 * Writing is recorded in the "archive" metrics phase.
+	 * @param out Output stream. It is not closed by this method. 
+	 * @throws IOException
+	 * @throws IllegalArgumentException If the model contains generators other than static text, static bytes, and bundle resources.
+	 */
+	public void writeArchive(OutputStream out) throws IOException {
+		Workspace workspace = CodegenFactory.eINSTANCE.createWorkspace();
+		Folder docFolder;
+		archive = true;
+		finalFiles.clear();
+		overwriteFilters.clear();
+		try {
+			docFolder = buildModel(workspace);
+		} finally {
+			archive = false;
+		}
+		addMetrics(docFolder);
 		
-		return workspace;
+		ZipOutputStream zipOut = new ZipOutputStream(out);
+		long start = System.nanoTime();
+		try {
+			Set<String> entries = new HashSet<>();
+			writeArchive(docFolder, "", zipOut, entries);
+			for (Entry<String, String> fe: getFinalFiles().entrySet()) {
+				if (putArchiveEntry(fe.getKey(), zipOut, entries)) {
+					zipOut.write((fe.getValue() == null ? "" : fe.getValue()).getBytes(StandardCharsets.UTF_8));
+				}
+			}
+		} finally {
+			finalFiles.clear();
+			if (metrics != null) {
+				metrics.record("archive", null, System.nanoTime() - start);
+			}
+		}
+		zipOut.finish();
+	}
+	
+	/**
+	 * Writes folder files to the archive.
+	 * @param folder
+	 * @param prefix Folder path relative to the documentation folder.
+	 * @param zipOut
+	 * @param entries Names of written entries. Subsequent entries with the same name are not written.
+	 * @throws IOException
+	 */
+	protected void writeArchive(Folder folder, String prefix, ZipOutputStream zipOut, Set<String> entries) throws IOException {
+		for (Object child: folder.getChildren()) {
+			if (child instanceof Folder) {
+				writeArchive((Folder) child, prefix + ((Folder) child).getName() + "/", zipOut, entries);
+			} else if (child instanceof TextFile) {
+				TextFile textFile = (TextFile) child;
+				StringBuilder content = new StringBuilder();
+				for (Object generator: textFile.getGenerators()) {
+					if (!(generator instanceof StaticText)) {
+						throw new IllegalArgumentException("Generator is not supported in the archive mode: "+generator);
+					}
+					String stc = ((StaticText) generator).getContent();
+					if (stc != null) {
+						content.append(stc);
+					}
+				}
+				if (putArchiveEntry(prefix + textFile.getName(), zipOut, entries)) {
+					zipOut.write(content.toString().getBytes(StandardCharsets.UTF_8));
+				}
+			} else if (child instanceof BinaryFile) {
+				BinaryFile binaryFile = (BinaryFile) child;
+				if (putArchiveEntry(prefix + binaryFile.getName(), zipOut, entries)) {
+					for (Object generator: binaryFile.getGenerators()) {
+						if (!(generator instanceof StaticBytes)) {
+							throw new IllegalArgumentException("Generator is not supported in the archive mode: "+generator);
+						}
+						byte[] content = ((StaticBytes) generator).getContent();
+						if (content != null) {
+							zipOut.write(content);
+						}
+					}
+				}
+			} else if (child instanceof BundleResource) {
+				byte[] buf = new byte[8192];
+				for (Map.Entry<String, URL> be: getBundleResourceEntries((BundleResource) child).entrySet()) {
+					if (putArchiveEntry(prefix + be.getKey(), zipOut, entries)) {
+						try (InputStream in = be.getValue().openStream()) {
+							int l;
+							while ((l = in.read(buf)) != -1) {
+								zipOut.write(buf, 0, l);
+							}
+						}
+					}
+				}
+			} else {
+				throw new IllegalArgumentException("Generator is not supported in the archive mode: "+child);
+			}
+		}
+	}
+	
+	/**
+	 * Starts a new archive entry unless an entry with the same name has already been written.
+	 * @return true if the entry was started.
+	 */
+	private static boolean putArchiveEntry(String path, ZipOutputStream zipOut, Set<String> entries) throws IOException {
+		if (!entries.add(path)) {
+			Activator.getDefault().getLog().log(new Status(Status.WARNING, Activator.PLUGIN_ID, "Duplicate archive entry, skipped: "+path));
+			return false;
+		}
+		zipOut.putNextEntry(new ZipEntry(path));
+		return true;
+	}
+
+	/**
+	 * @return true if the generation model is being built for {@link #writeArchive(OutputStream)}. 
+	 * In this case all files shall be placed to the documentation folder.
+	 */
+	protected boolean isArchive() {
+		return archive;
 	}
 
 	/**
@@ -52,6 +652,396 @@ public class BaseDocumentationGeneratorSupplier implements Supplier<Generator<?>
 		
 		
 	}
+
+	/**
+	 * @return Workspace folder to which documentation is generated.
+	 */
+	protected IFolder getTargetFolder() {
+		return ResourcesPlugin.getWorkspace().getRoot().getProject(projectName).getFolder(folderPath);
+	}
+
+	/**
+	 * Replaces generators of files with deferred static text generators with one deferred generator of content shared 
+	 * with the overwrite filter and the compressed sibling generator. 
+	 * @param folder
+	 * @param prefix Folder path relative to the documentation folder.
+	 */
+	private void shareDeferredContent(Folder folder, String prefix) {
+		for (Object child: folder.getChildren()) {
+			if (child instanceof Folder) {
+				shareDeferredContent((Folder) child, prefix + ((Folder) child).getName() + "/");
+			} else if (child instanceof TextFile) {
+				List<Generator<String>> generators = ((TextFile) child).getGenerators();
+				if (generators.stream().allMatch(StaticText.class::isInstance) && generators.stream().anyMatch(DeferredText.class::isInstance)) {
+					List<StaticText> staticTexts = new ArrayList<>();
+					generators.forEach(g -> staticTexts.add((StaticText) g));
+					DeferredContent deferredContent = new DeferredContent(() -> {
+						StringBuilder content = new StringBuilder();
+						for (StaticText staticText: staticTexts) {
+							String stc = staticText.getContent();
+							if (stc != null) {
+								content.append(stc);
+							}
+						}
+						return content.toString();
+					});
+					deferredContents.put(prefix + ((TextFile) child).getName(), deferredContent);
+					generators.clear();
+					generators.add(new DeferredText(deferredContent::get));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Loads the previous manifest, removes unchanged files with static content from the generation model, 
+	 * and makes deferred content record its hash in the current manifest when it is produced. 
+	 * The current manifest is written by {@link #finish(Predicate, IProgressMonitor)}.
+	 * @param docFolder
+	 * @throws IOException
+	 * @throws CoreException
+	 */
+	protected void applyManifest(Folder docFolder) throws CoreException, IOException {
+		IFolder targetFolder = getTargetFolder();
+		previousManifest = GenerationManifest.load(targetFolder.getFile(GenerationManifest.FILE_NAME));
+		currentManifest = new GenerationManifest();
+		applyManifest(docFolder, "", targetFolder, previousManifest, currentManifest);
+	}
+
+	/**
+	 * Computes content hashes of generated files, removes unchanged existing files from the generation model.
+	 * Hashes of deferred content are recorded in the current manifest when content is produced.
+	 * Folder reconcile action is set to {@link ReconcileAction#MERGE} so existing files which are not in the generation model are retained.
+	 * @param folder Folder.
+	 * @param prefix Folder path relative to the documentation folder.
+	 * @param targetFolder Documentation folder in the workspace.
+	 * @param previous Manifest of the previous generation.
+	 * @param current Manifest of this generation.
+	 * @throws IOException
+	 */
+	protected void applyManifest(Folder folder, String prefix, IFolder targetFolder, GenerationManifest previous, GenerationManifest current) throws IOException {
+		folder.setReconcileAction(ReconcileAction.MERGE);
+		Iterator<?> cit = folder.getChildren().iterator();
+		while (cit.hasNext()) {
+			Object child = cit.next();
+			if (child instanceof Folder) {
+				applyManifest((Folder) child, prefix + ((Folder) child).getName() + "/", targetFolder, previous, current);
+			} else if (child instanceof TextFile) {
+				TextFile textFile = (TextFile) child;
+				String path = prefix + textFile.getName();
+				DeferredContent deferredContent = deferredContents.get(path);
+				if (deferredContent != null) {
+					// Recorded until content is produced, so the file is not deleted as stale.
+					current.put(path, "");
+					deferredContent.addListener(content -> current.put(path, GenerationManifest.hash(content == null ? "" : content)));
+					continue;
+				}
+				StringBuilder content = new StringBuilder();
+				for (Object generator: textFile.getGenerators()) {
+					if (generator instanceof StaticText && !(generator instanceof DeferredText)) {
+						content.append(((StaticText) generator).getContent());
+					} else {
+						// Content is not known before execution.
+						content = null;
+						break;
+					}
+				}
+				if (content == null) {
+					current.put(path, "");
+				} else if (isUnchanged(path, GenerationManifest.hash(content.toString()), targetFolder, previous, current)) {
+					cit.remove();
+				}
+			} else if (child instanceof BinaryFile) {
+				BinaryFile binaryFile = (BinaryFile) child;
+				String path = prefix + binaryFile.getName();
+				String sourcePath = compressedSources.get(path);
+				if (sourcePath != null) {
+					DeferredContent sourceContent = deferredContents.get(sourcePath);
+					String sourceHash = current.get(sourcePath);
+					if (sourceContent != null) {
+						current.put(path, "");
+						// Source hash listener was added before because siblings follow their sources.
+						sourceContent.addListener(content -> current.put(path, COMPRESSED_HASH_PREFIX + current.get(sourcePath)));
+					} else if (sourceHash == null) {
+						current.put(path, "");
+					} else if (isUnchanged(path, COMPRESSED_HASH_PREFIX + sourceHash, targetFolder, previous, current)) {
+						// Compressed content changes only with its source.
+						cit.remove();
+						pendingCompressions.remove(path);
+					}
+				} else if (binaryFile.getGenerators().size() == 1 && binaryFile.getGenerators().get(0) instanceof StaticBytes && !(binaryFile.getGenerators().get(0) instanceof DeferredBytes)) {
+					byte[] content = ((StaticBytes) binaryFile.getGenerators().get(0)).getContent();
+					if (isUnchanged(path, GenerationManifest.hash(content == null ? new byte[0] : content), targetFolder, previous, current)) {
+						cit.remove();
+					}
+				} else {
+					current.put(path, "");
+				}
+			} else if (child instanceof BundleResource) {
+				boolean unchanged = true;
+				for (Map.Entry<String, String> be: hashBundleResource((BundleResource) child).entrySet()) {
+					unchanged = isUnchanged(prefix + be.getKey(), be.getValue(), targetFolder, previous, current) && unchanged;
+				}
+				if (unchanged) {
+					cit.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Counts files and bytes to be written. Bytes of static content are counted immediately, deferred content generators are wrapped to count bytes and 
+	 * record rendering duration in the "render" phase when content is produced during work execution.
+	 * @param folder
+	 * @param prefix Folder path relative to the documentation folder.
+	 */
+	protected void instrument(Folder folder, String prefix) {
+		for (Object child: folder.getChildren()) {
+			if (child instanceof Folder) {
+				instrument((Folder) child, prefix + ((Folder) child).getName() + "/");
+			} else if (child instanceof TextFile) {
+				metrics.increment("files", 1);
+				String path = prefix + ((TextFile) child).getName();
+				List<Generator<String>> generators = ((TextFile) child).getGenerators();
+				for (int i = 0; i < generators.size(); ++i) {
+					Generator<String> generator = generators.get(i);
+					if (generator instanceof DeferredText) {
+						DeferredText deferredText = (DeferredText) generator;
+						String renderType = getRenderType(path);
+						generators.set(i, new DeferredText(() -> {
+							String content = metrics.time("render", renderType, deferredText::getContent);
+							metrics.increment("bytes", content == null ? 0 : content.getBytes(StandardCharsets.UTF_8).length);
+							return content;
+						}));
+					} else if (generator instanceof StaticText) {
+						String content = ((StaticText) generator).getContent();
+						metrics.increment("bytes", content == null ? 0 : content.getBytes(StandardCharsets.UTF_8).length);
+					}
+				}
+			} else if (child instanceof BinaryFile) {
+				metrics.increment("files", 1);
+				for (Object generator: ((BinaryFile) child).getGenerators()) {
+					if (generator instanceof StaticBytes && !(generator instanceof DeferredBytes)) {
+						byte[] content = ((StaticBytes) generator).getContent();
+						metrics.increment("bytes", content == null ? 0 : content.length);
+					}
+				}
+			} else if (child instanceof BundleResource) {
+				metrics.increment("bundle-resources", 1);
+			}
+		}
+	}
+
+	/**
+	 * Adds compressed siblings of compressible files to the generation model. 
+	 * Static content not smaller than the precompressor threshold is submitted to the precompressor when the generation model is complete, 
+	 * unless the sibling is unchanged and removed from the model in the incremental mode. 
+	 * Deferred content is compressed by the sibling generator, siblings directly follow their sources, so the content is produced once.
+	 * Files with generators other than static text are not compressed.
+	 * @param folder
+	 * @param prefix Folder path relative to the documentation folder.
+	 */
+	protected void precompress(Folder folder, String prefix) {
+		Map<Object, BinaryFile> siblings = new IdentityHashMap<>();
+		for (Object child: new ArrayList<>(folder.getChildren())) {
+			if (child instanceof Folder) {
+				precompress((Folder) child, prefix + ((Folder) child).getName() + "/");
+			} else if (child instanceof TextFile) {
+				String name = ((TextFile) child).getName();
+				String path = prefix + name;
+				List<Generator<String>> generators = ((TextFile) child).getGenerators();
+				if (!precompressor.isCompressible(path) || generators.isEmpty() || !generators.stream().allMatch(StaticText.class::isInstance)) {
+					continue;
+				}
+				DeferredContent deferredContent = deferredContents.get(path);
+				if (deferredContent == null) {
+					StringBuilder content = new StringBuilder();
+					for (Generator<String> generator: generators) {
+						String stc = ((StaticText) generator).getContent();
+						if (stc != null) {
+							content.append(stc);
+						}
+					}
+					byte[] bytes = content.toString().getBytes(StandardCharsets.UTF_8);
+					if (bytes.length >= precompressor.getThreshold()) {
+						siblings.put(child, createCompressedSibling(prefix, name, () -> precompressor.submit(path, () -> bytes), () -> precompressor.getCompressed(path)));
+					}
+				} else {
+					siblings.put(child, createCompressedSibling(prefix, name, null, () -> {
+						// Content retained after the source file was written.
+						String content = deferredContent.get();
+						return precompressor.compress((content == null ? "" : content).getBytes(StandardCharsets.UTF_8));
+					}));
+				}
+			} else if (child instanceof BinaryFile) {
+				BinaryFile binaryFile = (BinaryFile) child;
+				String path = prefix + binaryFile.getName();
+				if (precompressor.isCompressible(path) 
+						&& binaryFile.getGenerators().size() == 1 
+						&& binaryFile.getGenerators().get(0) instanceof StaticBytes 
+						&& !(binaryFile.getGenerators().get(0) instanceof DeferredBytes)) {
+					byte[] content = ((StaticBytes) binaryFile.getGenerators().get(0)).getContent();
+					if (content != null && content.length >= precompressor.getThreshold()) {
+						siblings.put(child, createCompressedSibling(prefix, binaryFile.getName(), () -> precompressor.submit(path, () -> content), () -> precompressor.getCompressed(path)));
+					}
+				}
+			} else if (child instanceof BundleResource) {
+				for (Map.Entry<String, URL> be: getBundleResourceEntries((BundleResource) child).entrySet()) {
+					String path = prefix + be.getKey();
+					if (precompressor.isCompressible(path)) {
+						long size;
+						try {
+							URLConnection connection = be.getValue().openConnection();
+							size = connection.getContentLengthLong();
+						} catch (IOException e) {
+							size = -1;
+						}
+						// Unknown size is compressed.
+						if (size < 0 || size >= precompressor.getThreshold()) {
+							URL url = be.getValue();
+							int idx = be.getKey().lastIndexOf('/');
+							String entryFolderPath = idx == -1 ? "" : be.getKey().substring(0, idx);
+							String entryName = be.getKey().substring(idx + 1);
+							Folder entryFolder = getMergeFolder(folder, entryFolderPath);
+							entryFolder.getChildren().add(createCompressedSibling(
+									entryFolderPath.isEmpty() ? prefix : prefix + entryFolderPath + "/", 
+									entryName, 
+									() -> precompressor.submit(path, url), 
+									() -> precompressor.getCompressed(path)));
+						}
+					}
+				}
+			}
+		}
+		
+		if (!siblings.isEmpty()) {
+			@SuppressWarnings("unchecked")
+			List<Object> children = (List<Object>) (List<?>) folder.getChildren();
+			List<Object> ordered = new ArrayList<>(children.size() + siblings.size());
+			for (Object child: children) {
+				ordered.add(child);
+				BinaryFile sibling = siblings.get(child);
+				if (sibling != null) {
+					ordered.add(sibling);
+				}
+			}
+			children.clear();
+			children.addAll(ordered);
+		}
+	}
+	
+	/**
+	 * Creates compressed sibling file and records it in the list of precompressed files.
+	 * @param prefix Folder path relative to the documentation folder.
+	 * @param name Source file name.
+	 * @param submission Submits source content to the precompressor, null if content is compressed by the sibling generator.
+	 * @param compressedContent Supplier of compressed content called during work execution.
+	 * @return Sibling to add to the folder.
+	 */
+	private BinaryFile createCompressedSibling(String prefix, String name, Runnable submission, Supplier<byte[]> compressedContent) {
+		BinaryFile sibling = CodegenFactory.eINSTANCE.createBinaryFile();
+		sibling.setName(name + Precompressor.EXTENSION);
+		sibling.setReconcileAction(ReconcileAction.OVERWRITE);
+		sibling.getGenerators().add(new DeferredBytes(compressedContent));
+		String path = prefix + sibling.getName();
+		compressedSources.put(path, prefix + name);
+		if (submission != null) {
+			pendingCompressions.put(path, submission);
+		}
+		return sibling;
+	}
 	
+	/**
+	 * Finds or creates a merge folder in the generation model.
+	 * @param folder Parent folder.
+	 * @param path Folder path relative to the parent folder, segments are separated by slashes. Empty string for the parent folder.
+	 * @return Folder.
+	 */
+	protected static Folder getMergeFolder(Folder folder, String path) {
+		Folder ret = folder;
+		for (String segment: path.split("/")) {
+			if (!segment.isEmpty()) {
+				Folder existing = FolderIndex.get(ret).get(segment);
+				if (existing == null) {
+					existing = CodegenFactory.eINSTANCE.createFolder();
+					existing.setName(segment);
+					existing.setReconcileAction(ReconcileAction.MERGE);
+					ret.getChildren().add(existing);
+				}
+				ret = existing;
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * Records hash in the current manifest.
+	 * @return true if hash is the same as in the previous manifest and the file exists.
+	 */
+	private static boolean isUnchanged(String path, String hash, IFolder targetFolder, GenerationManifest previous, GenerationManifest current) {
+		current.put(path, hash);
+		return hash.equals(previous.get(path)) && targetFolder.getFile(path).exists();
+	}
+
+	/**
+	 * Computes hashes of bundle resource entries. Hashes are computed once per installed bundle and cached, 
+	 * so sites generated one after another do not read unchanged bundle entries again.
+	 * @param bundleResource
+	 * @return Unmodifiable map of entry paths relative to the bundle resource container to content hashes.
+	 * @throws IOException
+	 */
+	protected Map<String, String> hashBundleResource(BundleResource bundleResource) throws IOException {
+		Bundle bundle = Platform.getBundle(bundleResource.getBundle());
+		if (bundle == null) {
+			return Collections.emptyMap();
+		}
+		List<Object> key = Arrays.asList(bundle.getBundleId(), bundle.getLastModified(), bundleResource.getName(), new ArrayList<>(bundleResource.getPaths()));
+		Map<String, String> ret = BUNDLE_RESOURCE_HASHES.get(key);
+		if (ret == null) {
+			Map<String, String> hashes = new TreeMap<>();
+			for (Map.Entry<String, URL> entry: getBundleResourceEntries(bundleResource).entrySet()) {
+				try (InputStream in = entry.getValue().openStream()) {
+					hashes.put(entry.getKey(), GenerationManifest.hash(GenerationManifest.read(in)));
+				}
+			}
+			ret = Collections.unmodifiableMap(hashes);
+			BUNDLE_RESOURCE_HASHES.put(key, ret);
+		}
+		return ret;
+	}
+
+	/**
+	 * Lists files copied by a bundle resource.
+	 * @param bundleResource
+	 * @return Map of entry paths relative to the bundle resource container to entry URL's.
+	 */
+	public static Map<String, URL> getBundleResourceEntries(BundleResource bundleResource) {
+		Map<String, URL> ret = new TreeMap<>();
+		Bundle bundle = Platform.getBundle(bundleResource.getBundle());
+		if (bundle != null) {
+			String prefix = bundleResource.getName() == null ? "" : bundleResource.getName() + "/";
+			for (String path: bundleResource.getPaths()) {
+				List<URL> entries = new ArrayList<>();
+				if (path.endsWith("/")) {
+					Enumeration<URL> ee = bundle.findEntries(path, "*", true);
+					while (ee != null && ee.hasMoreElements()) {
+						entries.add(ee.nextElement());
+					}
+				} else {
+					URL entry = bundle.getEntry(path);
+					if (entry != null) {
+						entries.add(entry);
+					}
+				}
+				for (URL entry: entries) {
+					String entryPath = entry.getPath();
+					if (!entryPath.endsWith("/")) {
+						ret.put(prefix + (entryPath.startsWith("/") ? entryPath.substring(1) : entryPath), entry);
+					}
+				}
+			}
+		}
+		return ret;
+	}
 
 }
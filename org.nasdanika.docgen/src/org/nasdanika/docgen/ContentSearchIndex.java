@@ -0,0 +1,256 @@
+package org.nasdanika.docgen;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.nasdanika.codegen.CodegenFactory;
+import org.nasdanika.codegen.Folder;
+import org.nasdanika.codegen.ReconcileAction;
+import org.nasdanika.codegen.StaticText;
+import org.nasdanika.codegen.TextFile;
+
+/**
+ * Full-text inverted index of documentation pages. Pages are tokenized into lower-case terms,
+ * terms are grouped into shards by their first characters and written to <code>search/&lt;shard key&gt;.js</code> files with terms sorted alphabetically.
+ * Postings - page numbers - are delta-encoded and written as variable length base64 strings. Page paths and titles are written to <code>search/docs.js</code>.
+ * Shard keys use a fixed alphabet - latin letters, digits, and <code>_</code> for all other characters. Shards without terms are not written, 
+ * the client treats a missing shard as a shard without terms. Pages rendered during work execution are indexed when they are rendered, 
+ * shards of such pages are obtained with {@link #getShardFiles()} after work execution. Thread-safe.
+ * The index is queried by <code>resources/js/content-search.js</code>.
+ * @author Pavel Vlasov
+ *
+ */
+public class ContentSearchIndex {
+
+	/**
+	 * Name of the folder containing index files.
+	 */
+	public static final String FOLDER_NAME = "search";
+
+	private static final String SHARD_KEY_ALPHABET = "abcdefghijklmnopqrstuvwxyz0123456789_";
+
+	private static final String BASE64 = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+
+	private static final Pattern TAG = Pattern.compile("<[^>]*>|&#?[a-zA-Z0-9]+;");
+
+	private static final int MAX_TERM_LENGTH = 40;
+
+	private int shardKeyLength;
+
+	private List<String[]> docs = new ArrayList<>();
+
+	// Term -> page numbers in the order of indexing, possibly with duplicates.
+	private Map<String, Postings> postings = new HashMap<>();
+	
+	// Shard key -> term -> postings. Built from postings on first shard request after indexing.
+	private Map<String, Map<String, Postings>> shards;
+
+	/**
+	 * Growable array of page numbers.
+	 */
+	private static class Postings {
+
+		int[] docs = new int[4];
+		int size;
+
+		void add(int doc) {
+			if (size > 0 && docs[size - 1] == doc) {
+				return;
+			}
+			if (size == docs.length) {
+				docs = Arrays.copyOf(docs, size * 2);
+			}
+			docs[size++] = doc;
+		}
+
+		/**
+		 * @return Sorted distinct page numbers, delta-encoded as base64 VLQ.
+		 */
+		String encode() {
+			int[] sorted = Arrays.copyOf(docs, size);
+			Arrays.sort(sorted);
+			StringBuilder ret = new StringBuilder();
+			int prev = -1;
+			for (int doc: sorted) {
+				if (doc != prev) {
+					int delta = doc - prev;
+					do {
+						int digit = delta & 31;
+						delta >>>= 5;
+						ret.append(BASE64.charAt(delta == 0 ? digit : digit | 32));
+					} while (delta != 0);
+					prev = doc;
+				}
+			}
+			return ret.toString();
+		}
+
+	}
+
+	/**
+	 * @param shardKeyLength Number of leading term characters used as shard key.
+	 * The number of shard files is the alphabet size (37) to the power of this length.
+	 */
+	public ContentSearchIndex(int shardKeyLength) {
+		this.shardKeyLength = shardKeyLength;
+	}
+
+	public ContentSearchIndex() {
+		this(2);
+	}
+
+	public int getShardKeyLength() {
+		return shardKeyLength;
+	}
+
+	/**
+	 * Registers page.
+	 * @param path Page path relative to the documentation folder.
+	 * @param title Page title.
+	 * @return Page number to pass to {@link #index(int, String)}
+	 */
+	public synchronized int addDocument(String path, String title) {
+		docs.add(new String[] { path, title });
+		return docs.size() - 1;
+	}
+
+	/**
+	 * Tokenizes HTML and adds page terms to the index.
+	 * @param doc Page number.
+	 * @param html Page HTML or text.
+	 */
+	public synchronized void index(int doc, String html) {
+		if (html == null) {
+			return;
+		}
+		for (String term: TocSearchIndex.tokenize(TAG.matcher(html).replaceAll(" "))) {
+			if (term.length() > 1 && term.length() <= MAX_TERM_LENGTH) {
+				Postings termPostings = postings.get(term);
+				if (termPostings == null) {
+					termPostings = new Postings();
+					postings.put(term, termPostings);
+					shards = null;
+				}
+				termPostings.add(doc);
+			}
+		}
+	}
+
+	/**
+	 * @param term
+	 * @return Shard key of the term.
+	 */
+	public String shardKey(String term) {
+		StringBuilder ret = new StringBuilder();
+		for (int i = 0; i < shardKeyLength; ++i) {
+			char c = i < term.length() ? term.charAt(i) : '_';
+			ret.append(SHARD_KEY_ALPHABET.indexOf(c) == -1 ? '_' : c);
+		}
+		return ret.toString();
+	}
+
+	/**
+	 * @return Content of the index shard with a given key, empty string if there are no terms with this key.
+	 */
+	public synchronized String getShard(String key) {
+		Map<String, Postings> shardTerms = getShards().get(key);
+		return shardTerms == null ? "" : shardContent(shardTerms);
+	}
+	
+	/**
+	 * Groups terms by shard key in one pass over postings. 
+	 * @return Shard key -> term -> postings for non-empty shards.
+	 */
+	private synchronized Map<String, Map<String, Postings>> getShards() {
+		if (shards == null) {
+			shards = new TreeMap<>();
+			for (Entry<String, Postings> pe: postings.entrySet()) {
+				String key = shardKey(pe.getKey());
+				Map<String, Postings> shardTerms = shards.get(key);
+				if (shardTerms == null) {
+					shardTerms = new TreeMap<>();
+					shards.put(key, shardTerms);
+				}
+				shardTerms.put(pe.getKey(), pe.getValue());
+			}
+		}
+		return shards;
+	}
+
+	private static String shardContent(Map<String, Postings> shardTerms) {
+		JSONArray terms = new JSONArray();
+		for (Entry<String, Postings> te: shardTerms.entrySet()) {
+			terms.put(new JSONArray().put(te.getKey()).put(te.getValue().encode()));
+		}
+		JSONObject shard = new JSONObject();
+		shard.put("terms", terms);
+		return "define("+shard+")";
+	}
+
+	/**
+	 * @return Paths of non-empty shard files relative to the documentation folder mapped to shard content.
+	 */
+	public synchronized Map<String, String> getShardFiles() {
+		Map<String, String> ret = new TreeMap<>();
+		for (Entry<String, Map<String, Postings>> se: getShards().entrySet()) {
+			ret.put(FOLDER_NAME + "/" + se.getKey() + ".js", shardContent(se.getValue()));
+		}
+		return ret;
+	}
+
+	/**
+	 * @return Content of the page table.
+	 */
+	public synchronized String getDocs() {
+		JSONArray ret = new JSONArray();
+		for (String[] doc: docs) {
+			ret.put(new JSONArray().put(doc[0]).put(doc[1]));
+		}
+		return "define("+ret+")";
+	}
+
+	/**
+	 * Adds index folder to the documentation folder.
+	 * @param docFolder Documentation folder.
+	 * @param deferred If true, pages are rendered and indexed during work execution, so shards are not added to the generation model 
+	 * and shall be written from {@link #getShardFiles()} after work execution, 
+	 * e.g. registered with {@link BaseDocumentationGeneratorSupplier#addFinalFiles(java.util.function.Supplier)}. 
+	 * Otherwise non-empty shards are added to the index folder.
+	 */
+	public void write(Folder docFolder, boolean deferred) {
+		Folder indexFolder = CodegenFactory.eINSTANCE.createFolder();
+		indexFolder.setName(FOLDER_NAME);
+		indexFolder.setReconcileAction(ReconcileAction.OVERWRITE);
+		indexFolder.getChildren().add(createFile("docs.js", getDocs()));
+
+		if (!deferred) {
+			synchronized (this) {
+				for (Entry<String, Map<String, Postings>> se: getShards().entrySet()) {
+					indexFolder.getChildren().add(createFile(se.getKey()+".js", shardContent(se.getValue())));
+				}
+			}
+		}
+		docFolder.getChildren().add(indexFolder);
+	}
+
+	private static TextFile createFile(String name, String content) {
+		TextFile ret = CodegenFactory.eINSTANCE.createTextFile();
+		ret.setName(name);
+		ret.setReconcileAction(ReconcileAction.OVERWRITE);
+		if (content != null) {
+			StaticText text = CodegenFactory.eINSTANCE.createStaticText();
+			text.setContent(content);
+			ret.getGenerators().add(text);
+		}
+		return ret;
+	}
+
+}
@@ -0,0 +1,41 @@
+package org.nasdanika.docgen;
+
+import java.util.function.Supplier;
+
+import org.nasdanika.codegen.CodegenPackage;
+import org.nasdanika.codegen.impl.StaticBytesImpl;
+
+/**
+ * Static bytes generator which obtains its content from a supplier each time the content is requested, i.e. when generation work is executed.
+ * Binary counterpart of {@link DeferredText}.
+ * @author Pavel Vlasov
+ *
+ */
+public class DeferredBytes extends StaticBytesImpl {
+
+	private Supplier<byte[]> contentSupplier;
+
+	/**
+	 * @param contentSupplier Content supplier. Called on each content request.
+	 */
+	public DeferredBytes(Supplier<byte[]> contentSupplier) {
+		this.contentSupplier = contentSupplier;
+	}
+
+	@Override
+	public byte[] getContent() {
+		return contentSupplier.get();
+	}
+
+	/**
+	 * Content is always considered set in order not to produce content during reflective access, e.g. validation.
+	 */
+	@Override
+	public boolean eIsSet(int featureID) {
+		if (featureID == CodegenPackage.STATIC_BYTES__CONTENT) {
+			return true;
+		}
+		return super.eIsSet(featureID);
+	}
+
+}
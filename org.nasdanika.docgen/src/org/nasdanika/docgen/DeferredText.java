@@ -0,0 +1,42 @@
+package org.nasdanika.docgen;
+
+import java.util.function.Supplier;
+
+import org.nasdanika.codegen.CodegenPackage;
+import org.nasdanika.codegen.impl.StaticTextImpl;
+
+/**
+ * Static text generator which obtains its content from a supplier each time the content is requested, i.e. when generation work is executed.
+ * Content is not retained by the generator, so generation model holds content suppliers instead of content, and only content of the file being
+ * written has to be in memory.
+ * @author Pavel Vlasov
+ *
+ */
+public class DeferredText extends StaticTextImpl {
+
+	private Supplier<String> contentSupplier;
+
+	/**
+	 * @param contentSupplier Content supplier. Called on each content request.
+	 */
+	public DeferredText(Supplier<String> contentSupplier) {
+		this.contentSupplier = contentSupplier;
+	}
+
+	@Override
+	public String getContent() {
+		return contentSupplier.get();
+	}
+
+	/**
+	 * Content is always considered set in order not to produce content during reflective access, e.g. validation.
+	 */
+	@Override
+	public boolean eIsSet(int featureID) {
+		if (featureID == CodegenPackage.STATIC_TEXT__CONTENT) {
+			return true;
+		}
+		return super.eIsSet(featureID);
+	}
+
+}
@@ -0,0 +1,628 @@
+package org.nasdanika.docgen;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.eclipse.core.resources.IContainer;
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IFolder;
+import org.eclipse.core.resources.IProject;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.IWorkspace;
+import org.eclipse.core.resources.IWorkspaceRoot;
+import org.eclipse.core.resources.IWorkspaceRunnable;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.MultiStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.SubMonitor;
+import org.eclipse.core.runtime.jobs.ISchedulingRule;
+import org.eclipse.core.runtime.jobs.MultiRule;
+import org.eclipse.emf.common.util.BasicDiagnostic;
+import org.eclipse.emf.ecore.util.Diagnostician;
+import org.nasdanika.codegen.BinaryFile;
+import org.nasdanika.codegen.BundleResource;
+import org.nasdanika.codegen.Folder;
+import org.nasdanika.codegen.Generator;
+import org.nasdanika.codegen.Project;
+import org.nasdanika.codegen.ReconcileAction;
+import org.nasdanika.codegen.TextFile;
+import org.nasdanika.codegen.Work;
+import org.nasdanika.codegen.Workspace;
+import org.nasdanika.config.Context;
+
+/**
+ * Headless documentation generation engine. Validates generation models and executes them in the workspace without UI.
+ * Interaction is replaced with configuration: context properties, a provider of missing properties, and an overwrite predicate.
+ * Multiple generations can run concurrently on a bounded executor. Each generation runs under a scheduling rule of its target projects,
+ * so generations of different projects do not block each other.
+ * Services, e.g. caches of rendered metamodel documentation, are shared by all generations of the engine. 
+ * They are available to generations through {@link Context#get(Class)} and to documentation trees through {@link DocumentationNodeImpl#getService(Class)}.
+ * Engine configuration shall not be modified while generations are running.
+ * @author Pavel Vlasov
+ *
+ */
+public class DocumentationGenerationEngine implements AutoCloseable {
+
+	/**
+	 * Overwrite predicate which allows to overwrite all existing resources.
+	 */
+	public static final Predicate<Object> OVERWRITE_ALL = obj -> true;
+
+	/**
+	 * Overwrite predicate which keeps all existing resources.
+	 */
+	public static final Predicate<Object> OVERWRITE_NONE = obj -> false;
+
+	private int parallelism;
+	private ExecutorService executor;
+	private Map<String, Object> properties = new HashMap<>();
+	private Map<Class<?>, Object> services = new ConcurrentHashMap<>();
+	private Function<String, Object> propertyProvider = name -> null;
+	private Predicate<Object> overwritePredicate = OVERWRITE_ALL;
+	private ClassLoader classLoader = getClass().getClassLoader();
+	private int precompressThreshold = -1;
+	private String sharedResourcesFolder;
+
+	/**
+	 * @param parallelism Maximum number of concurrent generations.
+	 */
+	public DocumentationGenerationEngine(int parallelism) {
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Creates engine with parallelism equal to the number of available processors.
+	 */
+	public DocumentationGenerationEngine() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	public int getParallelism() {
+		return parallelism;
+	}
+
+	/**
+	 * @return Context properties. Properties are copied to the context of each generation.
+	 */
+	public Map<String, Object> getProperties() {
+		return properties;
+	}
+
+	/**
+	 * @return Services shared by generations, keyed by service type. Services shall be thread-safe.
+	 */
+	public Map<Class<?>, Object> getServices() {
+		return services;
+	}
+
+	/**
+	 * @param type Service type.
+	 * @return Service registered for the type or null.
+	 */
+	public <T> T getService(Class<T> type) {
+		return type.cast(services.get(type));
+	}
+
+	/**
+	 * @param propertyProvider Provides values of properties which are not in the property map.
+	 * Values are cached in the generation context. Shall be thread-safe. The default provider returns null.
+	 */
+	public void setPropertyProvider(Function<String, Object> propertyProvider) {
+		this.propertyProvider = propertyProvider;
+	}
+
+	public Function<String, Object> getPropertyProvider() {
+		return propertyProvider;
+	}
+
+	/**
+	 * @param overwritePredicate Decides whether an existing resource shall be overwritten. Shall be thread-safe.
+	 * May throw {@link OperationCanceledException} to cancel generation. Defaults to {@link #OVERWRITE_ALL}.
+	 */
+	public void setOverwritePredicate(Predicate<Object> overwritePredicate) {
+		this.overwritePredicate = overwritePredicate;
+	}
+
+	public Predicate<Object> getOverwritePredicate() {
+		return overwritePredicate;
+	}
+
+	/**
+	 * @param classLoader Class loader of generation contexts.
+	 */
+	public void setClassLoader(ClassLoader classLoader) {
+		this.classLoader = classLoader;
+	}
+
+	public ClassLoader getClassLoader() {
+		return classLoader;
+	}
+
+	/**
+	 * @param precompressThreshold If not negative, documentation sites are generated with gzip-compressed siblings of files 
+	 * which are not smaller than the threshold, see {@link Precompressor}. Defaults to -1 - no precompression.
+	 */
+	public void setPrecompressThreshold(int precompressThreshold) {
+		this.precompressThreshold = precompressThreshold;
+	}
+
+	public int getPrecompressThreshold() {
+		return precompressThreshold;
+	}
+
+	/**
+	 * @param sharedResourcesFolder If not null, sites generated by the engine share web resources in this folder, 
+	 * see {@link SiteDocumentationGeneratorSupplier#setSharedResourcesFolder(String)}.
+	 */
+	public void setSharedResourcesFolder(String sharedResourcesFolder) {
+		this.sharedResourcesFolder = sharedResourcesFolder;
+	}
+
+	public String getSharedResourcesFolder() {
+		return sharedResourcesFolder;
+	}
+
+	/**
+	 * Creates overwrite predicate which allows to overwrite only selected resources, e.g. conflicts selected by the user after {@link #findConflicts(Generator)}.
+	 * The predicate doesn't interact with the user.
+	 * @param selected Resources allowed to be overwritten. 
+	 * @param conflicts All resources presented for selection. Other resources are allowed to be overwritten if they are contained in a selected container.
+	 * @return
+	 */
+	public static Predicate<Object> overwriteSelected(Collection<? extends IResource> selected, Collection<? extends IResource> conflicts) {
+		Set<IResource> selectedSet = new HashSet<>(selected);
+		Set<IResource> conflictSet = new HashSet<>(conflicts);
+		return obj -> {
+			if (obj instanceof IResource) {
+				for (IResource resource = (IResource) obj; resource != null; resource = resource.getParent()) {
+					if (selectedSet.contains(resource)) {
+						return true;
+					}
+					if (conflictSet.contains(resource)) {
+						return false;
+					}
+				}
+				return false;
+			}
+			return selectedSet.contains(obj);
+		};
+	}
+
+	/**
+	 * Scans generation model for existing workspace resources which would be overwritten - folders, files, and bundle resource entries 
+	 * with {@link ReconcileAction#OVERWRITE} reconcile action. Used to confirm overwrites before execution, in one go.
+	 * @param generator Generation model.
+	 * @return Existing resources in the model order.
+	 */
+	public Set<IResource> findConflicts(Generator<?> generator) {
+		Set<IResource> ret = new LinkedHashSet<>();
+		for (Set<IResource> group: findConflictGroups(generator).values()) {
+			ret.addAll(group);
+		}
+		return ret;
+	}
+
+	/**
+	 * Scans generation model for conflicts as {@link #findConflicts(Generator)} and groups them by top-level output - 
+	 * the workspace resource of a top-level resource of a project in the generation model, e.g. the documentation folder or the shared resources folder.
+	 * Used to confirm overwrites per group, large sites may have too many conflicts to confirm them one by one.
+	 * @param generator Generation model.
+	 * @return Top-level outputs with conflicts mapped to their conflicts, in the model order. Bundle resources at the top level are grouped under their project.
+	 */
+	public Map<IResource, Set<IResource>> findConflictGroups(Generator<?> generator) {
+		Map<IResource, Set<IResource>> ret = new LinkedHashMap<>();
+		if (generator instanceof Workspace) {
+			IWorkspaceRoot root = ResourcesPlugin.getWorkspace().getRoot();
+			for (Object element: ((Workspace) generator).getElements()) {
+				if (element instanceof Project) {
+					IProject project = root.getProject(((Project) element).getName());
+					if (project.exists()) {
+						for (Object resource: ((Project) element).getResources()) {
+							Set<IResource> conflicts = new LinkedHashSet<>();
+							findConflicts(Collections.singletonList(resource), project, conflicts);
+							if (!conflicts.isEmpty()) {
+								IResource output = project;
+								if (resource instanceof Folder) {
+									output = project.getFolder(new Path(((Folder) resource).getName()));
+								} else if (resource instanceof TextFile) {
+									output = project.getFile(new Path(((TextFile) resource).getName()));
+								} else if (resource instanceof BinaryFile) {
+									output = project.getFile(new Path(((BinaryFile) resource).getName()));
+								}
+								ret.computeIfAbsent(output, k -> new LinkedHashSet<>()).addAll(conflicts);
+							}
+						}
+					}
+				}
+			}
+		}
+		return ret;
+	}
+
+	private static void findConflicts(Collection<?> resources, IContainer container, Set<IResource> conflicts) {
+		for (Object resource: resources) {
+			if (resource instanceof Folder) {
+				Folder folder = (Folder) resource;
+				IFolder target = container.getFolder(new Path(folder.getName()));
+				if (target.exists()) {
+					if (folder.getReconcileAction() == ReconcileAction.OVERWRITE) {
+						conflicts.add(target);
+					}
+					findConflicts(folder.getChildren(), target, conflicts);
+				}
+			} else if (resource instanceof TextFile) {
+				IFile target = container.getFile(new Path(((TextFile) resource).getName()));
+				if (target.exists() && ((TextFile) resource).getReconcileAction() == ReconcileAction.OVERWRITE) {
+					conflicts.add(target);
+				}
+			} else if (resource instanceof BinaryFile) {
+				IFile target = container.getFile(new Path(((BinaryFile) resource).getName()));
+				if (target.exists() && ((BinaryFile) resource).getReconcileAction() == ReconcileAction.OVERWRITE) {
+					conflicts.add(target);
+				}
+			} else if (resource instanceof BundleResource) {
+				BundleResource bundleResource = (BundleResource) resource;
+				if (bundleResource.getReconcileAction() == ReconcileAction.OVERWRITE) {
+					for (String path: BaseDocumentationGeneratorSupplier.getBundleResourceEntries(bundleResource).keySet()) {
+						IFile target = container.getFile(new Path(path));
+						if (target.exists()) {
+							conflicts.add(target);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Validates generation model.
+	 * @param generator
+	 * @return Validation status.
+	 */
+	public IStatus validate(Generator<?> generator) {
+		BasicDiagnostic accumulator = new BasicDiagnostic();
+		accumulator.add(new Diagnostician().validate(generator));
+		return BasicDiagnostic.toIStatus(accumulator);
+	}
+
+	/**
+	 * Validates and executes generation model in the calling thread.
+	 * @param generator Generation model.
+	 * @param monitor Progress monitor, can be null.
+	 * @throws CoreException If the model is invalid or generation fails.
+	 */
+	public void generate(Generator<?> generator, IProgressMonitor monitor) throws CoreException {
+		generate(generator, null, monitor);
+	}
+
+	/**
+	 * Validates and executes generation model in the calling thread and records "validation" and "execution" phases.
+	 * @param generator Generation model.
+	 * @param metrics Metrics, can be null.
+	 * @param monitor Progress monitor, can be null.
+	 * @throws CoreException If the model is invalid or generation fails.
+	 */
+	public void generate(Generator<?> generator, GenerationMetrics metrics, IProgressMonitor monitor) throws CoreException {
+		long start = System.nanoTime();
+		IStatus validationStatus = validate(generator);
+		if (metrics != null) {
+			metrics.record("validation", null, System.nanoTime() - start);
+		}
+		if (validationStatus.getSeverity() == IStatus.ERROR) {
+			throw new CoreException(validationStatus);
+		}
+		execute(generator, metrics, monitor);
+	}
+
+	/**
+	 * Executes generation model in the calling thread without validation and records the "execution" phase. 
+	 * Shall be used for models which were already validated with {@link #validate(Generator)}, e.g. to report validation errors to the user.
+	 * @param generator Generation model.
+	 * @param metrics Metrics, can be null.
+	 * @param monitor Progress monitor, can be null.
+	 * @throws CoreException If generation fails.
+	 */
+	public void execute(Generator<?> generator, GenerationMetrics metrics, IProgressMonitor monitor) throws CoreException {
+		execute(generator, (Supplier<? extends Generator<?>>) null, metrics, monitor);
+	}
+
+	/**
+	 * Builds generation model with the supplier, validates and executes it in the calling thread. 
+	 * If the supplier is a {@link BaseDocumentationGeneratorSupplier}, its {@link BaseDocumentationGeneratorSupplier#getOverwriteFilter() overwrite filter} 
+	 * is combined with the overwrite predicate and {@link BaseDocumentationGeneratorSupplier#finish(Predicate, IProgressMonitor)} is called with the overwrite predicate after the work execution 
+	 * in the same workspace operation. 
+	 * @param generatorSupplier Generation model supplier.
+	 * @param metrics Metrics, can be null.
+	 * @param monitor Progress monitor, can be null.
+	 * @throws CoreException If the model is invalid or generation fails.
+	 */
+	public void generate(Supplier<? extends Generator<?>> generatorSupplier, GenerationMetrics metrics, IProgressMonitor monitor) throws CoreException {
+		Generator<?> generator = generatorSupplier.get();
+		long start = System.nanoTime();
+		IStatus validationStatus = validate(generator);
+		if (metrics != null) {
+			metrics.record("validation", null, System.nanoTime() - start);
+		}
+		if (validationStatus.getSeverity() == IStatus.ERROR) {
+			throw new CoreException(validationStatus);
+		}
+		execute(generator, generatorSupplier, metrics, monitor);
+	}
+
+	/**
+	 * Executes generation model built by the last {@link Supplier#get()} call of the supplier in the calling thread without validation 
+	 * and records the "execution" phase. 
+	 * Shall be used for models which were already validated with {@link #validate(Generator)}, e.g. to report validation errors to the user.
+	 * If the supplier is a {@link BaseDocumentationGeneratorSupplier}, its overwrite filter is applied and 
+	 * {@link BaseDocumentationGeneratorSupplier#finish(Predicate, IProgressMonitor)} is called as in {@link #generate(Supplier, GenerationMetrics, IProgressMonitor)}.
+	 * @param generator Generation model.
+	 * @param generatorSupplier Supplier which built the generation model, can be null.
+	 * @param metrics Metrics, can be null.
+	 * @param monitor Progress monitor, can be null.
+	 * @throws CoreException If generation fails.
+	 */
+	public void execute(Generator<?> generator, Supplier<? extends Generator<?>> generatorSupplier, GenerationMetrics metrics, IProgressMonitor monitor) throws CoreException {
+		BaseDocumentationGeneratorSupplier supplier = generatorSupplier instanceof BaseDocumentationGeneratorSupplier ? (BaseDocumentationGeneratorSupplier) generatorSupplier : null;
+		Context context = createContext(supplier == null ? null : supplier.getOverwriteFilter());
+		IWorkspaceRunnable runnable = runnableMonitor -> {
+			try {
+				Work<?> work = generator.createWork();
+				SubMonitor subMonitor = SubMonitor.convert(runnableMonitor, work.size() + 1);
+				work.execute(context, subMonitor.split(work.size()));
+				if (supplier != null) {
+					supplier.finish(overwritePredicate, subMonitor.split(1));
+				}
+			} catch (CoreException | RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new CoreException(createMultiStatus(e.toString(), e));
+			} finally {
+				if (runnableMonitor != null) {
+					runnableMonitor.done();
+				}
+			}
+		};
+		long start = System.nanoTime();
+		try {
+			ResourcesPlugin.getWorkspace().run(runnable, getSchedulingRule(generator), IWorkspace.AVOID_UPDATE, monitor);
+		} finally {
+			if (metrics != null) {
+				metrics.record("execution", null, System.nanoTime() - start);
+			}
+		}
+	}
+
+	/**
+	 * Generates documentation site.
+	 * @param projectName Target project.
+	 * @param folderPath Target folder.
+	 * @param root Root documentation node.
+	 * @param monitor Progress monitor, can be null.
+	 * @return Generation metrics. The metrics report written to the documentation folder doesn't include the execution phase, which completes after the report is written.
+	 * @throws CoreException
+	 */
+	public GenerationMetrics generate(String projectName, String folderPath, DocumentationNode root, IProgressMonitor monitor) throws CoreException {
+		GenerationMetrics metrics = new GenerationMetrics();
+		Supplier<? extends Generator<?>> generatorSupplier = createGeneratorSupplier(projectName, folderPath, root);
+		if (generatorSupplier instanceof BaseDocumentationGeneratorSupplier) {
+			((BaseDocumentationGeneratorSupplier) generatorSupplier).setMetrics(metrics);
+		}
+		generate(generatorSupplier, metrics, monitor);
+		return metrics;
+	}
+
+	/**
+	 * Submits generation to the engine executor. The generation model is built by the supplier in the executor thread.
+	 * @param generatorSupplier
+	 * @return Future of generation status. Failures are reported as error statuses, cancellation as {@link IStatus#CANCEL} status.
+	 */
+	public Future<IStatus> submit(Supplier<? extends Generator<?>> generatorSupplier) {
+		return getExecutor().submit(() -> {
+			try {
+				generate(generatorSupplier, null, new NullProgressMonitor());
+				return Status.OK_STATUS;
+			} catch (OperationCanceledException e) {
+				return Status.CANCEL_STATUS;
+			} catch (CoreException e) {
+				return e.getStatus();
+			} catch (Exception e) {
+				return createMultiStatus(e.toString(), e);
+			}
+		});
+	}
+
+	/**
+	 * Submits documentation site generation.
+	 * @param projectName Target project.
+	 * @param folderPath Target folder.
+	 * @param root Root documentation node.
+	 * @return Future of generation status.
+	 */
+	public Future<IStatus> submit(String projectName, String folderPath, DocumentationNode root) {
+		return submit(createGeneratorSupplier(projectName, folderPath, root));
+	}
+
+	/**
+	 * Runs generations concurrently and waits for their completion. Cancellation of the monitor cancels generations which have not started yet.
+	 * @param generatorSuppliers
+	 * @param monitor Progress monitor, can be null. Worked once per completed generation.
+	 * @return Generation statuses in the order of suppliers.
+	 */
+	public List<IStatus> generate(Collection<? extends Supplier<? extends Generator<?>>> generatorSuppliers, IProgressMonitor monitor) {
+		SubMonitor subMonitor = SubMonitor.convert(monitor, generatorSuppliers.size());
+		List<Future<IStatus>> futures = new ArrayList<>();
+		for (Supplier<? extends Generator<?>> generatorSupplier: generatorSuppliers) {
+			futures.add(submit(generatorSupplier));
+		}
+		List<IStatus> ret = new ArrayList<>();
+		for (Future<IStatus> future: futures) {
+			if (subMonitor.isCanceled()) {
+				future.cancel(false);
+			}
+			try {
+				ret.add(future.get());
+			} catch (CancellationException e) {
+				ret.add(Status.CANCEL_STATUS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				ret.add(Status.CANCEL_STATUS);
+			} catch (ExecutionException e) {
+				ret.add(createMultiStatus(e.getCause().toString(), e.getCause()));
+			}
+			subMonitor.worked(1);
+		}
+		return ret;
+	}
+
+	/**
+	 * Shuts down the executor. Running generations are completed.
+	 */
+	@Override
+	public synchronized void close() {
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+	}
+
+	protected synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			executor = Executors.newFixedThreadPool(parallelism);
+		}
+		return executor;
+	}
+
+	/**
+	 * Creates generator supplier for a documentation tree. This implementation creates {@link SiteDocumentationGeneratorSupplier}
+	 * with a {@link Precompressor} if the precompress threshold is not negative and with the shared resources folder. 
+	 * If the root is a {@link DocumentationNodeImpl} without a service provider, then the engine services are provided to the tree. Override to configure the supplier.
+	 * @param projectName
+	 * @param folderPath
+	 * @param root
+	 * @return
+	 */
+	protected Supplier<? extends Generator<?>> createGeneratorSupplier(String projectName, String folderPath, DocumentationNode root) {
+		if (root instanceof DocumentationNodeImpl && ((DocumentationNodeImpl) root).getServiceProvider() == null) {
+			((DocumentationNodeImpl) root).setServiceProvider(services::get);
+		}
+		SiteDocumentationGeneratorSupplier ret = new SiteDocumentationGeneratorSupplier(projectName, folderPath, root);
+		ret.setSharedResourcesFolder(sharedResourcesFolder);
+		if (precompressThreshold >= 0) {
+			// Compression runs in the common pool - engine executor threads may wait for compression to complete.
+			Precompressor precompressor = new Precompressor();
+			precompressor.setThreshold(precompressThreshold);
+			ret.setPrecompressor(precompressor);
+		}
+		return ret;
+	}
+
+	/**
+	 * Creates context of a single generation.
+	 * @param overwriteFilter If not null, resources are overwritten only if both the filter and the overwrite predicate allow it. 
+	 * The filter is tested first.
+	 * @return
+	 */
+	protected Context createContext(Predicate<Object> overwriteFilter) {
+		Map<String, Object> contextProperties = Collections.synchronizedMap(new HashMap<>(properties));
+		Predicate<Object> predicate = overwriteFilter == null ? overwritePredicate : obj -> overwriteFilter.test(obj) && overwritePredicate.test(obj);
+		contextProperties.put(ReconcileAction.OVERWRITE_PREDICATE_CONTEXT_PROPERTY_NAME, predicate);
+
+		return new Context() {
+
+			@Override
+			public Object get(String name) {
+				synchronized (contextProperties) {
+					if (contextProperties.containsKey(name)) {
+						return contextProperties.get(name);
+					}
+				}
+				Object value = propertyProvider.apply(name);
+				contextProperties.put(name, value);
+				return value;
+			}
+
+			@Override
+			public <T> T get(Class<T> type) {
+				return getService(type);
+			}
+
+			@Override
+			public ClassLoader getClassLoader() {
+				return classLoader;
+			}
+
+		};
+	}
+
+	/**
+	 * @param generator
+	 * @return Rule of projects of the workspace generator if they all exist, workspace root rule otherwise.
+	 */
+	protected ISchedulingRule getSchedulingRule(Generator<?> generator) {
+		IWorkspace workspace = ResourcesPlugin.getWorkspace();
+		if (generator instanceof Workspace) {
+			ISchedulingRule ret = null;
+			for (Object element: ((Workspace) generator).getElements()) {
+				if (element instanceof Project) {
+					IProject project = workspace.getRoot().getProject(((Project) element).getName());
+					if (!project.exists()) {
+						return workspace.getRoot();
+					}
+					ret = MultiRule.combine(ret, project);
+				} else {
+					return workspace.getRoot();
+				}
+			}
+			return ret;
+		}
+		return workspace.getRoot();
+	}
+
+	/**
+	 * Creates status with stack trace, causes, and suppressed exceptions as children.
+	 * @param msg
+	 * @param t
+	 * @return
+	 */
+	public static MultiStatus createMultiStatus(String msg, Throwable t) {
+		List<IStatus> childStatuses = new ArrayList<>();
+
+		for (StackTraceElement stackTrace : t.getStackTrace()) {
+			childStatuses.add(new Status(IStatus.ERROR, Activator.PLUGIN_ID, stackTrace.toString()));
+		}
+
+		if (t.getCause() != null) {
+			childStatuses.add(createMultiStatus("Caused by: " + t.getCause(), t.getCause()));
+		}
+
+		for (Throwable s : t.getSuppressed()) {
+			childStatuses.add(createMultiStatus("Supressed: " + s, s));
+		}
+
+		return new MultiStatus(Activator.PLUGIN_ID, IStatus.ERROR, childStatuses.toArray(new IStatus[childStatuses.size()]), msg, t);
+	}
+
+}
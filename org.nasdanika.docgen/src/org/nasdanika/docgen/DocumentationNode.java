@@ -1,8 +1,16 @@
 package org.nasdanika.docgen;
 
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Spliterator;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.nasdanika.codegen.Folder;
 import org.nasdanika.codegen.Project;
@@ -50,6 +58,15 @@ public interface DocumentationNode {
 	 */
 	String getObjectPath(Object object);
 	
+	/**
+	 * Objects documented by this node. Used to build {@link ObjectPathIndex}. 
+	 * {@link #getObjectPath(Object)} of this node shall return documentation path for each of the documented objects.
+	 * @return
+	 */
+	default Collection<?> getDocumentedObjects() {
+		return Collections.emptyList();
+	}
+	
 	List<DocumentationNode> getChildren();
 	
 	/**
@@ -59,9 +76,91 @@ public interface DocumentationNode {
 	String getId();
 	
 	/**
-	 * Accepts a visitor and walks it through the tree.
+	 * Accepts a visitor and walks it through the tree in pre-order.
 	 * @param visitor
 	 */
-	void accept(Consumer<DocumentationNode> visitor);
+	default void accept(Consumer<DocumentationNode> visitor) {
+		walk(visitor, null);
+	}
+	
+	/**
+	 * Walks this node and its descendants depth-first. Traversal is iterative, so the tree depth is not limited by the stack size.
+	 * @param preVisitor Called for a node before its descendants, can be null.
+	 * @param postVisitor Called for a node after its descendants, can be null. The node's children are not accessed after this call, 
+	 * so the post-visitor may {@link #release()} the node.
+	 */
+	default void walk(Consumer<DocumentationNode> preVisitor, Consumer<DocumentationNode> postVisitor) {
+		Deque<DocumentationNode> path = new ArrayDeque<>();
+		Deque<Iterator<DocumentationNode>> iterators = new ArrayDeque<>();
+		if (preVisitor != null) {
+			preVisitor.accept(this);
+		}
+		path.push(this);
+		iterators.push(getChildren().iterator());
+		while (!path.isEmpty()) {
+			Iterator<DocumentationNode> iterator = iterators.peek();
+			if (iterator.hasNext()) {
+				DocumentationNode child = iterator.next();
+				if (preVisitor != null) {
+					preVisitor.accept(child);
+				}
+				path.push(child);
+				iterators.push(child.getChildren().iterator());
+			} else {
+				iterators.pop();
+				DocumentationNode node = path.pop();
+				if (postVisitor != null) {
+					postVisitor.accept(node);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return Splittable pre-order spliterator of this node and its descendants.
+	 */
+	default Spliterator<DocumentationNode> spliterator() {
+		return new DocumentationNodeSpliterator(this);
+	}
+	
+	/**
+	 * @return Sequential stream of this node and its descendants in pre-order.
+	 */
+	default Stream<DocumentationNode> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+	
+	/**
+	 * @return Parallel stream of this node and its descendants. Node methods called by stream operations shall be thread-safe.
+	 */
+	default Stream<DocumentationNode> parallelStream() {
+		return StreamSupport.stream(spliterator(), true);
+	}
+	
+	/**
+	 * Captures data needed to build content generators from non thread-safe sources, e.g. an EMF model and its item providers, into immutable structures.
+	 * Generators call this method in a single thread for each node before building content generators concurrently. 
+	 * {@link #buildContentGenerator(Workspace, Project, Folder, Function, Function)} of a captured node shall not access such sources.
+	 */
+	default void capture() {
+		// NOP
+	}
+	
+	/**
+	 * @return true if {@link #buildContentGenerator(Workspace, Project, Folder, Function, Function)} of a {@link #capture() captured} node
+	 * can be called concurrently with other nodes, i.e. doesn't access non thread-safe sources. 
+	 * Content generators of other nodes are built in a single thread. This implementation returns false.
+	 */
+	default boolean isThreadSafe() {
+		return false;
+	}
+	
+	/**
+	 * Releases resources which can be re-created on demand, e.g. lazily materialized children. 
+	 * Generators call this method after the node subtree content generators were built in order to keep memory footprint bounded.
+	 */
+	default void release() {
+		// NOP
+	}
 
 }
@@ -1,9 +1,12 @@
 package org.nasdanika.docgen;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
-import java.util.function.Consumer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 import org.nasdanika.codegen.Folder;
@@ -11,7 +14,14 @@ import org.nasdanika.codegen.Project;
 import org.nasdanika.codegen.Workspace;
 
 /**
- * Base class for documentation nodes. Handles id generation, children management, and delegation of getObjectPath to the children. 
+ * Base class for documentation nodes. Handles id generation, children management, and delegation of getObjectPath to the children.
+ * Node id is computed by the {@link IdStrategy} set on the node or inherited from its closest ancestor which has it set, 
+ * or by the default strategy of the node. If the strategy doesn't provide an id, the id is made of positions of the node and its ancestors 
+ * in their parents' children lists, e.g. <code>0-3-17</code>. 
+ * Position is assigned when the node is added to its parent, the id is computed on first {@link #getId()} call and cached. 
+ * Ids of siblings are computed together in the order of their positions, so ids don't depend on the order of {@link #getId()} calls on siblings. 
+ * Children are only appended, so ids of existing nodes don't change when children are added. 
+ * Adding the node to another parent resets cached ids of the node and its subtree.   
  * @author Pavel Vlasov
  *
  */
@@ -23,6 +33,28 @@ public class DocumentationNodeImpl implements DocumentationNode {
 	private String label;
 	private Object icon;
 	private DocumentationNodeImpl parent;
+	private int index = -1;
+	private volatile String id;
+	private IdStrategy idStrategy;
+	private PageLayout pageLayout;
+	private Function<Class<?>, Object> serviceProvider;
+	
+	// Strategy id -> key of the node which registered it. Maintained by the root node.
+	private volatile Map<String, Object> idRegistry;
+	
+	// Node class -> true if the class overrides getObjectPath().
+	private static final ClassValue<Boolean> OBJECT_PATH_OVERRIDE = new ClassValue<Boolean>() {
+		
+		@Override
+		protected Boolean computeValue(Class<?> type) {
+			try {
+				return type.getMethod("getObjectPath", Object.class).getDeclaringClass() != DocumentationNodeImpl.class;
+			} catch (NoSuchMethodException e) {
+				return false;
+			}
+		}
+		
+	};
 
 	public DocumentationNodeImpl() {
 	}	
@@ -51,42 +83,253 @@ public class DocumentationNodeImpl implements DocumentationNode {
 	}
 
 	/**
-	 * Delegates to children. 
-	 * Override to add node-specific resolution.
+	 * Resolves the object with {@link #getOwnObjectPath(Object)} of this node and its descendants in pre-order. 
+	 * The traversal is iterative. Descendants which are not {@link DocumentationNodeImpl}s or which override this method 
+	 * resolve the object with their {@link #getObjectPath(Object)}, overrides shall call this method to resolve the object in the subtree. 
+	 * New node classes shall override {@link #getOwnObjectPath(Object)} instead, so deep trees do not overflow the stack.
 	 */
 	@Override
 	public String getObjectPath(Object object) {
-		for (DocumentationNode child: getChildren()) {
-			String ret = child.getObjectPath(object);
-			if (ret != null) {
-				return ret;
+		Deque<DocumentationNode> stack = new ArrayDeque<>();
+		stack.push(this);
+		while (!stack.isEmpty()) {
+			DocumentationNode node = stack.pop();
+			if (node == this || node instanceof DocumentationNodeImpl && !OBJECT_PATH_OVERRIDE.get(node.getClass())) {
+				String ret = ((DocumentationNodeImpl) node).getOwnObjectPath(object);
+				if (ret != null) {
+					return ret;
+				}
+				List<DocumentationNode> nodeChildren = node.getChildren();
+				for (int i = nodeChildren.size() - 1; i >= 0; --i) {
+					stack.push(nodeChildren.get(i));
+				}
+			} else {
+				String ret = node.getObjectPath(object);
+				if (ret != null) {
+					return ret;
+				}
 			}
 		}
 		return null;
 	}
 	
+	/**
+	 * Override to add node-specific resolution. 
+	 * @param object
+	 * @return Path to the object documentation if the object is documented by this node, null otherwise. This implementation returns null.
+	 */
+	protected String getOwnObjectPath(Object object) {
+		return null;
+	}
+	
 	protected void setParent(DocumentationNodeImpl parent) {
 		this.parent = parent;
+		resetId();
+	}
+	
+	/**
+	 * Resets cached ids of this node and its descendants.
+	 */
+	protected void resetId() {
+		Deque<DocumentationNodeImpl> queue = new ArrayDeque<>();
+		queue.add(this);
+		while (!queue.isEmpty()) {
+			DocumentationNodeImpl node = queue.poll();
+			if (node.id != null) {
+				node.id = null;
+				// Descendants of a node without cached id don't have cached ids either.
+				for (DocumentationNode child: node.children) {
+					if (child instanceof DocumentationNodeImpl) {
+						queue.add((DocumentationNodeImpl) child);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * @return Parent node or null for the root node.
+	 */
+	public DocumentationNodeImpl getParent() {
+		return parent;
 	}
 	
 	public void addChild(DocumentationNode child) {
 		children.add(child);
 		if (child instanceof DocumentationNodeImpl) {
+			((DocumentationNodeImpl) child).index = children.size() - 1;
 			((DocumentationNodeImpl) child).setParent(this);
 		}
 	}
 
+	/**
+	 * Removes all children. Removed children keep reference to this node as their parent. 
+	 */
+	protected void clearChildren() {
+		children.clear();
+	}
+
 	@Override
 	public List<DocumentationNode> getChildren() {
 		return unmodifiableChildren;
 	}
 
+	/**
+	 * Computes ids of this node and its ancestors without cached ids and caches them.
+	 * @return Node id or null for the root node.
+	 */
 	@Override
 	public String getId() {
-		if (parent == null) {
-			return null;
+		if (id == null && parent != null) {
+			Deque<DocumentationNodeImpl> path = new ArrayDeque<>();
+			for (DocumentationNodeImpl node = this; node.id == null && node.parent != null; node = node.parent) {
+				path.push(node);
+			}
+			while (!path.isEmpty()) {
+				DocumentationNodeImpl node = path.pop();
+				node.parent.computeChildIds();
+				if (node.id == null) {
+					// Removed from the parent.
+					node.id = node.computeId();
+				}
+			}
+		}
+		return id;
+	}
+	
+	/**
+	 * Computes and caches ids of children without cached ids in the children order.
+	 */
+	private synchronized void computeChildIds() {
+		for (DocumentationNode child: children) {
+			if (child instanceof DocumentationNodeImpl) {
+				DocumentationNodeImpl childImpl = (DocumentationNodeImpl) child;
+				if (childImpl.id == null) {
+					childImpl.id = childImpl.computeId();
+				}
+			}
 		}
-		return parent.getId() == null ? String.valueOf(parent.children.indexOf(this)) : parent.getId()+"-"+parent.children.indexOf(this);
+	}
+	
+	/**
+	 * Computes id. Called by {@link #getId()} after the parent id is computed.
+	 * If a node with a different key has already registered the strategy id, the node position is appended to the id, e.g. <code>k3m7q2x9ab_4</code>, 
+	 * so the suffix doesn't depend on the order of id computation. 
+	 * The node which gets the id without suffix depends on the computation order only if strategy ids of nodes with different parents collide. 
+	 * @return Strategy id made unique in the tree or the positional id.
+	 */
+	protected String computeId() {
+		IdStrategy strategy = getIdStrategy();
+		String candidate = strategy.getId(this);
+		if (candidate == null) {
+			return parent.id == null ? String.valueOf(index) : parent.id + "-" + index;
+		}
+		Map<String, Object> registry = getIdRegistry();
+		Object key = strategy.getKey(this);
+		String ret = candidate;
+		while (true) {
+			Object existing = registry.putIfAbsent(ret, key);
+			if (existing == null || existing.equals(key)) {
+				return ret;
+			}
+			ret += "_" + index;
+		}
+	}
+	
+	/**
+	 * @return Strategy id registry of the tree, kept by the root node.
+	 */
+	private Map<String, Object> getIdRegistry() {
+		DocumentationNodeImpl root = this;
+		while (root.parent != null) {
+			root = root.parent;
+		}
+		if (root.idRegistry == null) {
+			synchronized (root) {
+				if (root.idRegistry == null) {
+					root.idRegistry = new ConcurrentHashMap<>();
+				}
+			}
+		}
+		return root.idRegistry;
+	}
+	
+	/**
+	 * Sets id strategy for this node and its descendants which don't have their own strategy. 
+	 * Shall be set before ids are computed.
+	 * @param idStrategy
+	 */
+	public void setIdStrategy(IdStrategy idStrategy) {
+		this.idStrategy = idStrategy;
+	}
+	
+	/**
+	 * @return Id strategy set on this node or inherited from the closest ancestor which has it set, or {@link #getDefaultIdStrategy()}.
+	 */
+	public IdStrategy getIdStrategy() {
+		for (DocumentationNodeImpl node = this; node != null; node = node.parent) {
+			if (node.idStrategy != null) {
+				return node.idStrategy;
+			}
+		}
+		return getDefaultIdStrategy();
+	}
+	
+	/**
+	 * @return Id strategy used if no strategy is set on the node or its ancestors. This implementation returns {@link IdStrategy#POSITIONAL}.
+	 */
+	protected IdStrategy getDefaultIdStrategy() {
+		return IdStrategy.POSITIONAL;
+	}
+	
+	/**
+	 * Sets page layout for this node and its descendants which don't have their own layout. 
+	 * @param pageLayout
+	 */
+	public void setPageLayout(PageLayout pageLayout) {
+		this.pageLayout = pageLayout;
+	}
+	
+	/**
+	 * @return Page layout set on this node or inherited from the closest ancestor which has it set, or {@link PageLayout#FLAT}.
+	 */
+	public PageLayout getPageLayout() {
+		for (DocumentationNodeImpl node = this; node != null; node = node.parent) {
+			if (node.pageLayout != null) {
+				return node.pageLayout;
+			}
+		}
+		return PageLayout.FLAT;
+	}
+	
+	/**
+	 * Sets service provider for this node and its descendants which don't have their own provider, 
+	 * e.g. to share caches between documentation trees. {@link DocumentationGenerationEngine} provides its services to the trees it generates.
+	 * @param serviceProvider Returns service of a given type or null. Shall be thread-safe.
+	 */
+	public void setServiceProvider(Function<Class<?>, Object> serviceProvider) {
+		this.serviceProvider = serviceProvider;
+	}
+	
+	/**
+	 * @return Service provider set on this node or inherited from the closest ancestor which has it set, or null.
+	 */
+	public Function<Class<?>, Object> getServiceProvider() {
+		for (DocumentationNodeImpl node = this; node != null; node = node.parent) {
+			if (node.serviceProvider != null) {
+				return node.serviceProvider;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * @param type Service type.
+	 * @return Service from the service provider or null if there is no provider or it doesn't provide the service.
+	 */
+	public <T> T getService(Class<T> type) {
+		Function<Class<?>, Object> provider = getServiceProvider();
+		return provider == null ? null : type.cast(provider.apply(type));
 	}
 
 	@Override
@@ -101,13 +344,4 @@ public class DocumentationNodeImpl implements DocumentationNode {
 		return null;
 	}
 
-	@Override
-	public void accept(Consumer<DocumentationNode> visitor) {
-		visitor.accept(this);
-		for (DocumentationNode child: children) {
-			child.accept(visitor);
-		}
-		
-	}
-
 }
@@ -0,0 +1,96 @@
+package org.nasdanika.docgen;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Pre-order spliterator of a documentation subtree. Traversal is iterative, so the tree depth is not limited by the stack size.
+ * The spliterator keeps pending subtrees in the encounter order. It splits off the first half of pending subtrees,
+ * or, if there is one pending subtree, its root node alone, leaving the root's children pending.
+ * Children are obtained from {@link DocumentationNode#getChildren()} after the node is passed to the action.
+ * Nodes shall not be modified during traversal.
+ * @author Pavel Vlasov
+ *
+ */
+public class DocumentationNodeSpliterator implements Spliterator<DocumentationNode> {
+
+	private static class Item {
+
+		DocumentationNode node;
+		boolean withChildren;
+
+		Item(DocumentationNode node, boolean withChildren) {
+			this.node = node;
+			this.withChildren = withChildren;
+		}
+
+	}
+
+	private Deque<Item> pending = new ArrayDeque<>();
+
+	/**
+	 * @param root Subtree root.
+	 */
+	public DocumentationNodeSpliterator(DocumentationNode root) {
+		pending.add(new Item(root, true));
+	}
+
+	private DocumentationNodeSpliterator() {
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super DocumentationNode> action) {
+		Item item = pending.pollFirst();
+		if (item == null) {
+			return false;
+		}
+		action.accept(item.node);
+		if (item.withChildren) {
+			pushChildren(item.node);
+		}
+		return true;
+	}
+
+	private void pushChildren(DocumentationNode node) {
+		List<DocumentationNode> children = node.getChildren();
+		for (int i = children.size() - 1; i >= 0; --i) {
+			pending.addFirst(new Item(children.get(i), true));
+		}
+	}
+
+	@Override
+	public Spliterator<DocumentationNode> trySplit() {
+		DocumentationNodeSpliterator prefix = new DocumentationNodeSpliterator();
+		if (pending.size() > 1) {
+			for (int i = pending.size() / 2; i > 0; --i) {
+				prefix.pending.add(pending.pollFirst());
+			}
+			return prefix;
+		}
+		Item item = pending.peekFirst();
+		if (item != null && item.withChildren && !item.node.getChildren().isEmpty()) {
+			pending.clear();
+			prefix.pending.add(new Item(item.node, false));
+			pushChildren(item.node);
+			return prefix;
+		}
+		return null;
+	}
+
+	/**
+	 * @return {@link Long#MAX_VALUE} if there are pending nodes - the subtree size is not known in advance, 0 otherwise.
+	 */
+	@Override
+	public long estimateSize() {
+		return pending.isEmpty() ? 0 : Long.MAX_VALUE;
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL;
+	}
+
+}
@@ -5,6 +5,7 @@ import org.nasdanika.html.HTMLFactory;
 import org.nasdanika.html.HTMLFactory.InputType;
 import org.nasdanika.html.Input;
 import org.nasdanika.html.Tag;
+import org.nasdanika.html.Tag.TagName;
 
 /**
  * This class generates documentation panel HTML.
@@ -24,7 +25,7 @@ public class DocumentationPanelFactory {
 	 */
 	public Tag leftPanel() {
 		Tag leftOverlay = htmlFactory.spinnerOverlay(Spinner.spinner).id("left-overlay").style("display", "none");				
-		return htmlFactory.div(leftOverlay, tocSearchDiv(), tocDiv());
+		return htmlFactory.div(leftOverlay, tocSearchDiv(), searchResultsDiv(), tocDiv());
 	}
 	
 	public Tag rightPanel() {
@@ -39,5 +40,12 @@ public class DocumentationPanelFactory {
 		Input searchText = htmlFactory.input(InputType.text).id("toc-search").style().width("100%").placeholder("Search the table of contents");
 		return htmlFactory.div(searchText);
 	}
+	
+	/**
+	 * @return Container of full-text search results, hidden until a query is entered. 
+	 */
+	protected Tag searchResultsDiv() {
+		return htmlFactory.div(htmlFactory.tag(TagName.ol).style("overflow-y", "auto")).id("search-container").style("display", "none");
+	}
 
 }
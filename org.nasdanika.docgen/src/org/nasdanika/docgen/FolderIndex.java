@@ -0,0 +1,89 @@
+package org.nasdanika.docgen;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.nasdanika.codegen.Folder;
+
+/**
+ * Adapter indexing sub-folders of a generation model folder by name, so folders with many children are not scanned on each lookup.
+ * The index is built from the folder children on first use and then kept in sync by children add/remove notifications.
+ * @author Pavel Vlasov
+ *
+ */
+class FolderIndex extends AdapterImpl {
+
+	private Map<String, Folder> folders = new HashMap<>();
+
+	/**
+	 * @param folder Folder.
+	 * @return Index of the folder children, adapter is created and attached on first call.
+	 */
+	static FolderIndex get(Folder folder) {
+		for (Adapter adapter: folder.eAdapters()) {
+			if (adapter instanceof FolderIndex) {
+				return (FolderIndex) adapter;
+			}
+		}
+		FolderIndex ret = new FolderIndex();
+		for (Object child: folder.getChildren()) {
+			ret.add(child);
+		}
+		folder.eAdapters().add(ret);
+		return ret;
+	}
+
+	/**
+	 * @param name Folder name.
+	 * @return Child folder with the given name or null.
+	 */
+	Folder get(String name) {
+		return folders.get(name);
+	}
+
+	private void add(Object child) {
+		if (child instanceof Folder) {
+			folders.putIfAbsent(((Folder) child).getName(), (Folder) child);
+		}
+	}
+
+	private void remove(Object child) {
+		if (child instanceof Folder && folders.get(((Folder) child).getName()) == child) {
+			folders.remove(((Folder) child).getName());
+		}
+	}
+
+	@Override
+	public void notifyChanged(Notification msg) {
+		switch (msg.getEventType()) {
+		case Notification.ADD:
+			add(msg.getNewValue());
+			break;
+		case Notification.ADD_MANY:
+			for (Object child: (Collection<?>) msg.getNewValue()) {
+				add(child);
+			}
+			break;
+		case Notification.REMOVE:
+			remove(msg.getOldValue());
+			break;
+		case Notification.REMOVE_MANY:
+			for (Object child: (Collection<?>) msg.getOldValue()) {
+				remove(child);
+			}
+			break;
+		default:
+			break;
+		}
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == FolderIndex.class;
+	}
+
+}
@@ -2,37 +2,30 @@ package org.nasdanika.docgen;
 
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.function.Predicate;
+import java.util.Set;
+import java.util.function.Supplier;
 
+import org.eclipse.core.resources.IResource;
 import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.MultiStatus;
-import org.eclipse.core.runtime.OperationCanceledException;
-import org.eclipse.core.runtime.Status;
-import org.eclipse.core.runtime.SubMonitor;
-import org.eclipse.emf.common.util.BasicDiagnostic;
-import org.eclipse.emf.ecore.util.Diagnostician;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.dialogs.ErrorDialog;
-import org.eclipse.jface.dialogs.IDialogConstants;
 import org.eclipse.jface.dialogs.InputDialog;
-import org.eclipse.jface.dialogs.MessageDialog;
 import org.eclipse.jface.dialogs.ProgressMonitorDialog;
+import org.eclipse.jface.viewers.ArrayContentProvider;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.window.Window;
 import org.eclipse.swt.widgets.Shell;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.PlatformUI;
-import org.eclipse.ui.actions.WorkspaceModifyOperation;
+import org.eclipse.ui.dialogs.ListSelectionDialog;
 import org.eclipse.ui.model.WorkbenchLabelProvider;
 import org.nasdanika.codegen.Generator;
-import org.nasdanika.codegen.ReconcileAction;
-import org.nasdanika.codegen.Work;
-import org.nasdanika.config.Context;
 
 /**
  * Base class for documentation generation actions. Uses {@link Generator}s for generation.
@@ -50,6 +43,14 @@ public abstract class GenerateDocumentationAction extends Action {
 	}
 	
 	protected abstract Generator<?> getGenerator();
+	
+	/**
+	 * @return Supplier of the generation model. Override to return a {@link BaseDocumentationGeneratorSupplier}, so incremental generation 
+	 * deletes stale files, writes the generation manifest, and skips unchanged files. This implementation supplies {@link #getGenerator()}.
+	 */
+	protected Supplier<? extends Generator<?>> getGeneratorSupplier() {
+		return this::getGenerator;
+	}
 
 	/**
 	 * Verify that generation is possible for the selection and collect source objects.
@@ -60,134 +61,146 @@ public abstract class GenerateDocumentationAction extends Action {
 		return true;
 	}	
 	
+	/**
+	 * Creates engine to run generation. 
+	 * Property values are collected with {@link #promptProperties(Shell, DocumentationGenerationEngine)} and 
+	 * overwrites are confirmed with {@link #confirmOverwrites(Shell, DocumentationGenerationEngine, Generator)} before generation,
+	 * so generation interacts with the user only to ask for values of properties which were not known before generation.
+	 * @param shell
+	 * @return
+	 */
+	protected DocumentationGenerationEngine createEngine(Shell shell) {
+		DocumentationGenerationEngine engine = new DocumentationGenerationEngine(1);
+		engine.setClassLoader(getClassLoader());
+		engine.getProperties().put("base-url", "irrelevant"); // TODO - spec file or something like this.
+		return engine;
+	}
+	
+	/**
+	 * @return Names of context properties which values shall be provided by the user before generation. This implementation returns an empty collection.
+	 * Properties which are not listed are asked for during generation when requested.
+	 */
+	protected Collection<String> getPromptedProperties() {
+		return Collections.emptyList();
+	}
+	
+	/**
+	 * Asks the user in the UI thread for values of {@link #getPromptedProperties()} which are not in the engine properties and puts them to the engine properties.
+	 * Values of other properties which are missing during generation are asked for when generation requests them, 
+	 * the value is asked once per generation and is null if the user cancels the dialog.
+	 * @param shell
+	 * @param engine
+	 * @return false if the user cancelled generation.
+	 */
+	protected boolean promptProperties(Shell shell, DocumentationGenerationEngine engine) {
+		for (String name: getPromptedProperties()) {
+			if (!engine.getProperties().containsKey(name)) {
+			    InputDialog id = new InputDialog(shell, "Property value",  "Provide value for property '"+name+"'", null, null);
+		        if (id.open() != Window.OK) {
+		        	return false;
+		        }
+		        engine.getProperties().put(name, id.getValue());
+			}
+		}
+		
+		// Fallback for properties which are not known before generation. The engine caches provided values in the generation context.
+		engine.setPropertyProvider(name -> {
+			String[] result = { null };					
+			shell.getDisplay().syncExec(() -> {						
+			    InputDialog id = new InputDialog(shell, "Property value",  "Provide value for property '"+name+"'", null, null);
+		        if (id.open() == Window.OK) {
+		        	result[0] = id.getValue();
+		        }																		
+			});
+			return result[0];
+		});
+		return true;
+	}
+	
+	/**
+	 * Collects existing resources which would be overwritten, groups them by top-level output, e.g. the documentation folder, 
+	 * and asks the user once which groups to overwrite. 
+	 * Sets engine overwrite predicate to allow only overwriting of resources in the selected groups, so generation runs without UI interaction.
+	 * @param shell
+	 * @param engine
+	 * @param generator
+	 * @return false if the user cancelled generation.
+	 */
+	protected boolean confirmOverwrites(Shell shell, DocumentationGenerationEngine engine, Generator<?> generator) {
+		Map<IResource, Set<IResource>> conflictGroups = engine.findConflictGroups(generator);
+		if (conflictGroups.isEmpty()) {
+			engine.setOverwritePredicate(DocumentationGenerationEngine.OVERWRITE_ALL);
+			return true;
+		}
+		
+		ListSelectionDialog dialog = new ListSelectionDialog(
+				shell, 
+				conflictGroups.keySet(), 
+				ArrayContentProvider.getInstance(), 
+				new WorkbenchLabelProvider() {
+					
+					@Override
+					protected String decorateText(String input, Object element) {
+						if (element instanceof IResource) {
+							int size = conflictGroups.get(element).size();
+							return ((IResource) element).getFullPath() + " (" + size + (size == 1 ? " existing resource)" : " existing resources)");
+						}
+						return input;
+					}
+					
+				}, 
+				"Select outputs to overwrite. Existing resources of outputs which are not selected will be kept.");
+		dialog.setTitle("Confirm overwrite");
+		dialog.setInitialElementSelections(new ArrayList<>(conflictGroups.keySet()));
+		if (dialog.open() != Window.OK) {
+			return false;
+		}
+		
+		List<IResource> selected = new ArrayList<>();
+		for (Object element: dialog.getResult()) {
+			selected.addAll(conflictGroups.get(element));
+		}
+		List<IResource> conflicts = new ArrayList<>();
+		conflictGroups.values().forEach(conflicts::addAll);
+		engine.setOverwritePredicate(DocumentationGenerationEngine.overwriteSelected(selected, conflicts));
+		return true;
+	}
+	
 	@Override
 	public void run() {
-		Generator<?> generator = getGenerator();
+		Supplier<? extends Generator<?>> generatorSupplier = getGeneratorSupplier();
+		Generator<?> generator = generatorSupplier == null ? null : generatorSupplier.get();
 		if (generator != null) {
 			IWorkbench workbench = PlatformUI.getWorkbench();
 			Shell shell = workbench.getModalDialogShellProvider().getShell();
 			
-			Diagnostician diagnostician = new Diagnostician();
+			DocumentationGenerationEngine engine = createEngine(shell);
 			
-			BasicDiagnostic accumulator = new BasicDiagnostic();
-			accumulator.add(diagnostician.validate(generator));
-			
-			IStatus validationStatus = BasicDiagnostic.toIStatus(accumulator);
+			IStatus validationStatus = engine.validate(generator);
 			if (validationStatus.getSeverity() == IStatus.ERROR) {
 	            ErrorDialog.openError(shell, "Generation model is invalid", "Generation model contains errors", validationStatus);
 				Activator.getDefault().getLog().log(validationStatus);
 				return;
 			}
 			
+			if (!promptProperties(shell, engine) || !confirmOverwrites(shell, engine, generator)) {
+				return;
+			}
+			
 			try {							
-				
-				Map<String, Object> properties = new HashMap<>();
-				properties.put("base-url", "irrelevant"); // TODO - spec file or something like this.
-				
-				Predicate<Object> overwritePredicate = (obj) -> {
-					
-					int[] result = { 0 };
-				
-					shell.getDisplay().syncExec(() -> {
-						WorkbenchLabelProvider wlp = new WorkbenchLabelProvider();
-						MessageDialog dialog = new MessageDialog(
-								shell, 
-								"Confirm overwrite "+obj.getClass().getName(), 
-								null, 
-								"Overwrite "+wlp.getText(obj), MessageDialog.QUESTION_WITH_CANCEL, 
-								0, 
-								new String[] { IDialogConstants.YES_LABEL, IDialogConstants.NO_LABEL, IDialogConstants.CANCEL_LABEL });
-						
-						result[0] = dialog.open();
- 					});
-					
-					if (result[0] == 2) { // index of the cancel button.
-						throw new OperationCanceledException();
-					}
-					
-					return result[0] == 0;
-				};
-				
-				properties.put(ReconcileAction.OVERWRITE_PREDICATE_CONTEXT_PROPERTY_NAME, overwritePredicate);
-				
-				Context rootContext = new Context() {
-	
-					@Override
-					public Object get(String name) {
-						if (properties.containsKey(name)) {
-							return properties.get(name);
-						}
-						
-						String[] result = { null };					
-						shell.getDisplay().syncExec(() -> {						
-						    InputDialog id = new InputDialog(shell, "Property value",  "Provide value for property '"+name+"'", null, null);
-					        if (id.open() == Window.OK) {
-					        	result[0] = id.getValue();
-					        }																		
-						});
-						properties.put(name, result[0]);
-						return result[0];
-					}
-	
-					@Override
-					public <T> T get(Class<T> type) {						
-						return null;
-					}
-	
-					@Override
-					public ClassLoader getClassLoader() {
-						return GenerateDocumentationAction.this.getClassLoader();
+				new ProgressMonitorDialog(shell).run(true, true, monitor -> {
+					try {
+						engine.execute(generator, generatorSupplier, null, monitor);
+					} catch (CoreException e) {
+						throw new InvocationTargetException(e);
 					}
-					
-				};
-				
-				WorkspaceModifyOperation operation = new WorkspaceModifyOperation() {
-					
-					@Override
-					protected void execute(IProgressMonitor monitor) throws CoreException, InvocationTargetException, InterruptedException {	
-						try {
-							Work<?> work = generator.createWork();
-							SubMonitor subMonitor = SubMonitor.convert(monitor, work.size());
-							work.execute(rootContext, subMonitor);
-						} catch (CoreException | InvocationTargetException | InterruptedException | RuntimeException e) {
-							throw e;
-						} catch (Exception e) {
-							throw new InvocationTargetException(e);
-						} finally {
-							monitor.done();
-						}					
-					}
-					
-				};
-	
-				new ProgressMonitorDialog(shell).run(true, true, operation);
+				});
 			} catch (Exception exception) {
-	            MultiStatus status = createMultiStatus(exception.toString(), exception);
+	            MultiStatus status = DocumentationGenerationEngine.createMultiStatus(exception.toString(), exception);
 	            ErrorDialog.openError(shell, "Generation error", exception.toString(), status);
 				Activator.getDefault().getLog().log(status);
-				exception.printStackTrace();
 			}
 		}
 	}
 	
-	private static MultiStatus createMultiStatus(String msg, Throwable t) {
-		List<Status> childStatuses = new ArrayList<>();
-
-		for (StackTraceElement stackTrace : t.getStackTrace()) {
-			childStatuses.add(new Status(IStatus.ERROR, "org.nasdanika.codegen.editor", stackTrace.toString()));
-		}
-
-		if (t.getCause() != null) {
-			childStatuses.add(createMultiStatus("Caused by: " + t.getCause(), t.getCause()));
-		}
-
-		for (Throwable s : t.getSuppressed()) {
-			childStatuses.add(createMultiStatus("Supressed: " + s, s.getCause()));
-		}
-
-		MultiStatus ms = new MultiStatus("org.nasdanika.codegen.editor", IStatus.ERROR,	childStatuses.toArray(new Status[childStatuses.size()]), msg, t);
-
-		return ms;
-	}
-
 }
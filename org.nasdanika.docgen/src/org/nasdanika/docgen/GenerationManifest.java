@@ -0,0 +1,141 @@
+package org.nasdanika.docgen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.runtime.CoreException;
+import org.json.JSONObject;
+
+/**
+ * Manifest of generated files - maps file path relative to the documentation folder to content hash.
+ * Manifest of the previous generation is used to skip writing of unchanged files and to delete files which are not generated anymore.
+ * Thread-safe.
+ * @author Pavel Vlasov
+ *
+ */
+public class GenerationManifest {
+
+	/**
+	 * Name of the manifest file in the documentation folder.
+	 */
+	public static final String FILE_NAME = "docgen-manifest.json";
+
+	private static final String HASH_ALGORITHM = "SHA-256";
+
+	private Map<String, String> entries = new ConcurrentSkipListMap<>();
+
+	public GenerationManifest() {
+	}
+
+	/**
+	 * Creates manifest from its JSON representation.
+	 * @param json
+	 */
+	public GenerationManifest(String json) {
+		JSONObject jsonObject = new JSONObject(json);
+		for (String path: jsonObject.keySet()) {
+			entries.put(path, jsonObject.getString(path));
+		}
+	}
+
+	/**
+	 * Loads manifest from a file.
+	 * @param file Manifest file.
+	 * @return Loaded manifest or an empty manifest if the file doesn't exist.
+	 * @throws CoreException
+	 * @throws IOException
+	 */
+	public static GenerationManifest load(IFile file) throws CoreException, IOException {
+		if (file == null || !file.exists()) {
+			return new GenerationManifest();
+		}
+		try (InputStream in = file.getContents()) {
+			return new GenerationManifest(new String(read(in), StandardCharsets.UTF_8));
+		}
+	}
+
+	/**
+	 * @param path File path relative to the documentation folder.
+	 * @return Content hash or null if there is no entry for the path.
+	 */
+	public String get(String path) {
+		return entries.get(path);
+	}
+
+	/**
+	 * @param path File path relative to the documentation folder.
+	 * @param hash Content hash.
+	 */
+	public void put(String path, String hash) {
+		entries.put(path, hash);
+	}
+
+	/**
+	 * @return Paths of all entries in alphabetical order.
+	 */
+	public Set<String> getPaths() {
+		return entries.keySet();
+	}
+
+	/**
+	 * @return JSON representation of the manifest.
+	 */
+	@Override
+	public String toString() {
+		JSONObject ret = new JSONObject();
+		for (Map.Entry<String, String> e: entries.entrySet()) {
+			ret.put(e.getKey(), e.getValue());
+		}
+		return ret.toString(1);
+	}
+
+	/**
+	 * @param content
+	 * @return Hex-encoded hash of the content.
+	 */
+	public static String hash(byte[] content) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+			StringBuilder ret = new StringBuilder();
+			for (byte b: digest.digest(content)) {
+				ret.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return ret.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @param content
+	 * @return Hex-encoded hash of UTF-8 bytes of the content.
+	 */
+	public static String hash(String content) {
+		return hash(content == null ? new byte[0] : content.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Reads input stream to a byte array. Doesn't close the stream.
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	public static byte[] read(InputStream in) throws IOException {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		byte[] buf = new byte[8192];
+		int l;
+		while ((l = in.read(buf)) != -1) {
+			baos.write(buf, 0, l);
+		}
+		return baos.toByteArray();
+	}
+
+}
@@ -0,0 +1,232 @@
+package org.nasdanika.docgen;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Generation metrics - latency histograms per phase and per type within a phase, e.g. documentation node type or EClass, and named counters, e.g. files and bytes written.
+ * Histograms have power of two nanosecond buckets. Thread-safe.
+ * @author Pavel Vlasov
+ *
+ */
+public class GenerationMetrics {
+
+	/**
+	 * Name of the metrics report file in the documentation folder.
+	 */
+	public static final String FILE_NAME = "docgen-metrics.json";
+
+	/**
+	 * Latency histogram.
+	 */
+	public static class Histogram {
+
+		private long count;
+		private long total;
+		private long min = Long.MAX_VALUE;
+		private long max;
+		private long[] buckets = new long[64];
+
+		/**
+		 * @param nanos Duration in nanoseconds.
+		 */
+		public synchronized void record(long nanos) {
+			nanos = Math.max(0, nanos);
+			++count;
+			total += nanos;
+			min = Math.min(min, nanos);
+			max = Math.max(max, nanos);
+			++buckets[64 - Long.numberOfLeadingZeros(nanos)];
+		}
+
+		public synchronized long getCount() {
+			return count;
+		}
+
+		/**
+		 * @return Total duration in nanoseconds.
+		 */
+		public synchronized long getTotal() {
+			return total;
+		}
+
+		public synchronized long getMin() {
+			return count == 0 ? 0 : min;
+		}
+
+		public synchronized long getMax() {
+			return max;
+		}
+
+		/**
+		 * @param percentile Percentile between 0 and 100.
+		 * @return Upper bound of the bucket containing the percentile, in nanoseconds, capped by the maximum.
+		 */
+		public synchronized long getPercentile(double percentile) {
+			long threshold = (long) Math.ceil(count * percentile / 100);
+			long accumulated = 0;
+			for (int i = 0; i < buckets.length; ++i) {
+				accumulated += buckets[i];
+				if (accumulated >= threshold && accumulated > 0) {
+					return Math.min(max, i == 0 ? 0 : (1L << i) - 1);
+				}
+			}
+			return max;
+		}
+
+		/**
+		 * @return JSON representation with durations in microseconds and non-empty buckets as [upper bound in microseconds, count] pairs.
+		 */
+		public synchronized JSONObject toJSON() {
+			JSONObject ret = new JSONObject();
+			ret.put("count", count);
+			ret.put("totalMicros", total / 1000);
+			ret.put("minMicros", getMin() / 1000);
+			ret.put("maxMicros", max / 1000);
+			ret.put("p50Micros", getPercentile(50) / 1000);
+			ret.put("p99Micros", getPercentile(99) / 1000);
+			JSONArray jsonBuckets = new JSONArray();
+			for (int i = 0; i < buckets.length; ++i) {
+				if (buckets[i] > 0) {
+					jsonBuckets.put(new JSONArray().put(i == 0 ? 0 : ((1L << i) - 1) / 1000).put(buckets[i]));
+				}
+			}
+			ret.put("buckets", jsonBuckets);
+			return ret;
+		}
+
+	}
+
+	/**
+	 * Phase histogram with histograms per type.
+	 */
+	public static class Phase extends Histogram {
+
+		private Map<String, Histogram> types = new ConcurrentHashMap<>();
+
+		/**
+		 * @return Histograms of types in this phase.
+		 */
+		public Map<String, Histogram> getTypes() {
+			return types;
+		}
+
+		@Override
+		public JSONObject toJSON() {
+			JSONObject ret = super.toJSON();
+			if (!types.isEmpty()) {
+				JSONObject jsonTypes = new JSONObject();
+				for (Map.Entry<String, Histogram> te: new TreeMap<>(types).entrySet()) {
+					jsonTypes.put(te.getKey(), te.getValue().toJSON());
+				}
+				ret.put("types", jsonTypes);
+			}
+			return ret;
+		}
+
+	}
+
+	private Map<String, Phase> phases = new ConcurrentHashMap<>();
+
+	private Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+	/**
+	 * Records phase duration.
+	 * @param phase Phase name.
+	 * @param type Type within the phase, can be null.
+	 * @param nanos Duration in nanoseconds.
+	 */
+	public void record(String phase, String type, long nanos) {
+		Phase phaseHistogram = phases.computeIfAbsent(phase, p -> new Phase());
+		phaseHistogram.record(nanos);
+		if (type != null) {
+			phaseHistogram.types.computeIfAbsent(type, t -> new Histogram()).record(nanos);
+		}
+	}
+
+	/**
+	 * Executes action and records its duration.
+	 * @param phase Phase name.
+	 * @param type Type within the phase, can be null.
+	 * @param action
+	 * @return Action result.
+	 */
+	public <T> T time(String phase, String type, Supplier<T> action) {
+		long start = System.nanoTime();
+		try {
+			return action.get();
+		} finally {
+			record(phase, type, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Increments counter.
+	 * @param counter Counter name.
+	 * @param delta Increment.
+	 */
+	public void increment(String counter, long delta) {
+		counters.computeIfAbsent(counter, c -> new LongAdder()).add(delta);
+	}
+
+	/**
+	 * @param counter
+	 * @return Counter value, zero if the counter has not been incremented.
+	 */
+	public long getCounter(String counter) {
+		LongAdder ret = counters.get(counter);
+		return ret == null ? 0 : ret.sum();
+	}
+
+	/**
+	 * @return Counter names.
+	 */
+	public Iterable<String> getCounters() {
+		return counters.keySet();
+	}
+
+	/**
+	 * @param phase
+	 * @return Phase histogram or null if the phase has not been recorded.
+	 */
+	public Phase getPhase(String phase) {
+		return phases.get(phase);
+	}
+
+	/**
+	 * @return Phases by name.
+	 */
+	public Map<String, Phase> getPhases() {
+		return phases;
+	}
+
+	public JSONObject toJSON() {
+		JSONObject ret = new JSONObject();
+		JSONObject jsonPhases = new JSONObject();
+		for (Map.Entry<String, Phase> pe: new TreeMap<>(phases).entrySet()) {
+			jsonPhases.put(pe.getKey(), pe.getValue().toJSON());
+		}
+		ret.put("phases", jsonPhases);
+		JSONObject jsonCounters = new JSONObject();
+		for (Map.Entry<String, LongAdder> ce: new TreeMap<>(counters).entrySet()) {
+			jsonCounters.put(ce.getKey(), ce.getValue().sum());
+		}
+		ret.put("counters", jsonCounters);
+		return ret;
+	}
+
+	/**
+	 * @return JSON report.
+	 */
+	@Override
+	public String toString() {
+		return toJSON().toString(1);
+	}
+
+}
@@ -0,0 +1,52 @@
+package org.nasdanika.docgen;
+
+/**
+ * Distributes pages over sub-folders of the {@link #FOLDER_NAME} folder by prefixes of a hash of the node id,
+ * e.g. <code>pages/k3/&lt;id&gt;.html</code>. Each level has up to 32<sup>width</sup> sub-folders,
+ * so with one level of width 2 a site with 300 000 pages has about 300 pages per folder.
+ * The page location depends only on the node id.
+ * @author Pavel Vlasov
+ *
+ */
+public class HashPageLayout implements PageLayout {
+
+	/**
+	 * Root folder of pages.
+	 */
+	public static final String FOLDER_NAME = "pages";
+
+	private int levels;
+	private int width;
+
+	/**
+	 * @param levels Number of folder levels under the pages folder.
+	 * @param width Length of folder names, each character selects one of 32 folders.
+	 */
+	public HashPageLayout(int levels, int width) {
+		if (levels < 0 || width < 1 || levels * width > IdStrategy.HASH_LENGTH - 1) {
+			throw new IllegalArgumentException("Invalid levels and width: " + levels + ", " + width);
+		}
+		this.levels = levels;
+		this.width = width;
+	}
+
+	/**
+	 * One level of 1024 folders.
+	 */
+	public HashPageLayout() {
+		this(1, 2);
+	}
+
+	@Override
+	public String getPagePath(DocumentationNode node) {
+		String id = node.getId();
+		// The first hash character is biased - skipped.
+		String hash = IdStrategy.hash(id);
+		StringBuilder ret = new StringBuilder(FOLDER_NAME).append('/');
+		for (int i = 0; i < levels; ++i) {
+			ret.append(hash, 1 + i * width, 1 + (i + 1) * width).append('/');
+		}
+		return ret.append(id).append(".html").toString();
+	}
+
+}
@@ -0,0 +1,297 @@
+package org.nasdanika.docgen;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import javax.imageio.ImageIO;
+
+import org.eclipse.core.runtime.Status;
+import org.nasdanika.codegen.BinaryFile;
+import org.nasdanika.codegen.CodegenFactory;
+import org.nasdanika.codegen.Folder;
+import org.nasdanika.codegen.ReconcileAction;
+import org.nasdanika.codegen.StaticBytes;
+import org.nasdanika.codegen.StaticText;
+import org.nasdanika.codegen.TextFile;
+
+/**
+ * Stores icons to the icons folder of the generation model and returns icon paths.
+ * Icons are deduplicated by content hash - identical images loaded from different URL's are stored once.
+ * Icon content is read outside of the store lock, so the store can be used by concurrent callers.
+ * Icons registered with {@link #getTocIcon(Object)} which are not larger than the sprite size can be packed into a single sprite sheet
+ * with a stylesheet defining a class per icon, see {@link #setSpriteSize(int)}.
+ * @author Pavel Vlasov
+ *
+ */
+public class IconStore implements Function<Object, String> {
+
+	/**
+	 * Name of the icons folder in the documentation folder.
+	 */
+	public static final String FOLDER_NAME = "icons";
+
+	/**
+	 * Name of the sprite sheet image.
+	 */
+	public static final String SPRITE_IMAGE_NAME = "sprite.png";
+
+	/**
+	 * Name of the sprite sheet stylesheet.
+	 */
+	public static final String SPRITE_STYLESHEET_NAME = "sprite.css";
+
+	/**
+	 * Prefix of sprite CSS classes.
+	 */
+	public static final String SPRITE_CLASS_PREFIX = "docgen-icon-";
+
+	/**
+	 * Size of TOC tree icon cell in the default jstree theme.
+	 */
+	private static final int SPRITE_CELL_SIZE = 24;
+
+	private Folder folder;
+
+	// Icon key -> icon path.
+	private Map<Object, String> paths = new ConcurrentHashMap<>();
+
+	// Content hash -> icon path.
+	private Map<String, String> contentPaths = new HashMap<>();
+
+	private Set<String> names = new HashSet<>();
+
+	private Map<String, byte[]> contents = new HashMap<>();
+
+	private int spriteSize;
+
+	// Icon path -> sprite class.
+	private Map<String, String> spriteClasses = new HashMap<>();
+
+	private List<BufferedImage> spriteImages = new ArrayList<>();
+
+	public IconStore() {
+		folder = CodegenFactory.eINSTANCE.createFolder();
+		folder.setReconcileAction(ReconcileAction.OVERWRITE);
+		folder.setName(FOLDER_NAME);
+		names.add(SPRITE_IMAGE_NAME);
+		names.add(SPRITE_STYLESHEET_NAME);
+	}
+
+	/**
+	 * @return Icons folder to be added to the documentation folder.
+	 */
+	public Folder getFolder() {
+		return folder;
+	}
+
+	/**
+	 * @param spriteSize If positive, TOC icons which width and height do not exceed this size are packed to a sprite sheet.
+	 */
+	public void setSpriteSize(int spriteSize) {
+		this.spriteSize = Math.min(spriteSize, SPRITE_CELL_SIZE);
+	}
+
+	public int getSpriteSize() {
+		return spriteSize;
+	}
+
+	/**
+	 * Stores icon.
+	 * @param icon Icon object. This implementation supports {@link URL}'s.
+	 * @return Icon path relative to the documentation folder or null if the icon is null, of unsupported type, or cannot be read.
+	 */
+	@Override
+	public String apply(Object icon) {
+		if (icon == null) {
+			return null;
+		}
+		Object key = getKey(icon);
+		if (key == null) {
+			return null;
+		}
+		String path = paths.get(key);
+		if (path != null) {
+			return path;
+		}
+
+		byte[] content;
+		try {
+			content = read(icon);
+		} catch (IOException e) {
+			Activator.getDefault().getLog().log(new Status(Status.WARNING, Activator.PLUGIN_ID, "Unable to store icon: "+icon, e));
+			return null;
+		}
+		if (content == null) {
+			return null;
+		}
+
+		synchronized (this) {
+			path = paths.get(key);
+			if (path == null) {
+				String hash = GenerationManifest.hash(content);
+				path = contentPaths.get(hash);
+				if (path == null) {
+					String name = uniqueName(getName(icon));
+					BinaryFile iconFile = CodegenFactory.eINSTANCE.createBinaryFile();
+					iconFile.setName(name);
+					iconFile.setReconcileAction(ReconcileAction.OVERWRITE);
+					StaticBytes iconContent = CodegenFactory.eINSTANCE.createStaticBytes();
+					iconContent.setContent(content);
+					iconFile.getGenerators().add(iconContent);
+					folder.getChildren().add(iconFile);
+					path = FOLDER_NAME + "/" + name;
+					contentPaths.put(hash, path);
+					if (spriteSize > 0) {
+						contents.put(path, content);
+					}
+				}
+				paths.put(key, path);
+			}
+			return path;
+		}
+	}
+
+	/**
+	 * Stores icon to be displayed in the TOC tree.
+	 * @param icon
+	 * @return Sprite CSS classes if the icon is packed to the sprite sheet, icon path otherwise. jstree treats icon values without slashes as CSS classes.
+	 */
+	public String getTocIcon(Object icon) {
+		String path = apply(icon);
+		if (path == null || spriteSize <= 0) {
+			return path;
+		}
+		synchronized (this) {
+			String spriteClass = spriteClasses.get(path);
+			if (spriteClass == null) {
+				spriteClass = "";
+				byte[] content = contents.get(path);
+				if (content != null) {
+					try {
+						BufferedImage image = ImageIO.read(new ByteArrayInputStream(content));
+						if (image != null && image.getWidth() <= spriteSize && image.getHeight() <= spriteSize) {
+							spriteClass = SPRITE_CLASS_PREFIX + spriteImages.size();
+							spriteImages.add(image);
+						}
+					} catch (IOException e) {
+						Activator.getDefault().getLog().log(new Status(Status.WARNING, Activator.PLUGIN_ID, "Unable to decode icon: "+icon, e));
+					}
+				}
+				spriteClasses.put(path, spriteClass);
+			}
+			return spriteClass.isEmpty() ? path : spriteClass;
+		}
+	}
+
+	/**
+	 * Adds sprite sheet image and stylesheet to the icons folder if there are icons packed to the sprite sheet.
+	 * Shall be called after all TOC icons are registered.
+	 * @return true if the sprite sheet was written.
+	 * @throws IOException
+	 */
+	public synchronized boolean writeSprite() throws IOException {
+		if (spriteImages.isEmpty()) {
+			return false;
+		}
+		// Icons are centered in cells stacked vertically.
+		BufferedImage sprite = new BufferedImage(SPRITE_CELL_SIZE, SPRITE_CELL_SIZE * spriteImages.size(), BufferedImage.TYPE_INT_ARGB);
+		StringBuilder css = new StringBuilder();
+		for (int i = 0; i < spriteImages.size(); ++i) {
+			BufferedImage image = spriteImages.get(i);
+			sprite.getGraphics().drawImage(image, (SPRITE_CELL_SIZE - image.getWidth()) / 2, i * SPRITE_CELL_SIZE + (SPRITE_CELL_SIZE - image.getHeight()) / 2, null);
+			// Element and two classes to take precedence over jstree custom icon rules.
+			css.append("i.jstree-themeicon-custom.").append(SPRITE_CLASS_PREFIX).append(i)
+				.append(" { background: url(").append(SPRITE_IMAGE_NAME).append(") 0 -").append(i * SPRITE_CELL_SIZE).append("px no-repeat; }\n");
+		}
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		ImageIO.write(sprite, "png", baos);
+
+		BinaryFile spriteFile = CodegenFactory.eINSTANCE.createBinaryFile();
+		spriteFile.setName(SPRITE_IMAGE_NAME);
+		spriteFile.setReconcileAction(ReconcileAction.OVERWRITE);
+		StaticBytes spriteContent = CodegenFactory.eINSTANCE.createStaticBytes();
+		spriteContent.setContent(baos.toByteArray());
+		spriteFile.getGenerators().add(spriteContent);
+		folder.getChildren().add(spriteFile);
+
+		TextFile cssFile = CodegenFactory.eINSTANCE.createTextFile();
+		cssFile.setName(SPRITE_STYLESHEET_NAME);
+		cssFile.setReconcileAction(ReconcileAction.OVERWRITE);
+		StaticText cssContent = CodegenFactory.eINSTANCE.createStaticText();
+		cssContent.setContent(css.toString());
+		cssFile.getGenerators().add(cssContent);
+		folder.getChildren().add(cssFile);
+		return true;
+	}
+
+	/**
+	 * @return Number of stored icon files.
+	 */
+	public synchronized int size() {
+		return contentPaths.size();
+	}
+
+	/**
+	 * @param icon
+	 * @return Key to cache icon path or null if the icon type is not supported. URL's are keyed by external form to avoid host name resolution in URL.equals().
+	 */
+	protected Object getKey(Object icon) {
+		if (icon instanceof URL) {
+			return ((URL) icon).toExternalForm();
+		}
+		return null;
+	}
+
+	/**
+	 * @param icon
+	 * @return Icon file name, may be not unique.
+	 */
+	protected String getName(Object icon) {
+		String iconFilePath = ((URL) icon).getFile();
+		int lastSlash = iconFilePath.lastIndexOf("/");
+		return lastSlash == -1 ? iconFilePath : iconFilePath.substring(lastSlash+1);
+	}
+
+	/**
+	 * Reads icon content. Called outside of the store lock.
+	 * @param icon
+	 * @return Icon content or null if icon type is not supported.
+	 * @throws IOException
+	 */
+	protected byte[] read(Object icon) throws IOException {
+		if (icon instanceof URL) {
+			try (InputStream is = ((URL) icon).openStream()) {
+				return GenerationManifest.read(is);
+			}
+		}
+		return null;
+	}
+
+	private String uniqueName(String name) {
+		if (names.add(name)) {
+			return name;
+		}
+		int dotIdx = name.lastIndexOf('.');
+		String prefix = dotIdx == -1 ? name : name.substring(0, dotIdx);
+		String suffix = dotIdx == -1 ? "" : name.substring(dotIdx);
+		for (int counter = 1; ; ++counter) {
+			String altName = prefix + "-" + Integer.toString(counter, Character.MAX_RADIX) + suffix;
+			if (names.add(altName)) {
+				return altName;
+			}
+		}
+	}
+
+}
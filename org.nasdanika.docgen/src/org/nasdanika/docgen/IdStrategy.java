@@ -0,0 +1,71 @@
+package org.nasdanika.docgen;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Strategy of {@link DocumentationNodeImpl} ids. Ids are used as page file names and TOC routes,
+ * so ids which stay the same across generations for the same documented element keep generated files and browser/CDN caches valid.
+ * Strategy ids are registered in the documentation tree. If a node with a different key has already registered the same id, 
+ * the node position in its parent's children list is appended as a suffix, e.g. <code>_4</code>.
+ * @author Pavel Vlasov
+ *
+ */
+public interface IdStrategy {
+
+	/**
+	 * Positional ids, e.g. <code>0-3-17</code> - positions of the node and its ancestors in their parents' children lists.
+	 */
+	IdStrategy POSITIONAL = node -> null;
+
+	/**
+	 * Length of ids produced by {@link #hash(String)}.
+	 */
+	int HASH_LENGTH = 10;
+
+	/**
+	 * @param node Node. Ids of its ancestors are already computed.
+	 * @return Stable id or null to use the positional id. The id shall be a valid file name and shall not contain <code>_</code>.
+	 */
+	String getId(DocumentationNodeImpl node);
+
+	/**
+	 * @param node Node.
+	 * @return Key identifying the node among nodes with the same id.
+	 * Nodes re-created for the same element, e.g. after release, shall have equal keys in order to get the same id.
+	 * Keys are retained by the tree until it is garbage collected, so they shall not reference nodes or documented elements which may be released, 
+	 * e.g. keys may be strings or lists of strings. This implementation returns the node.
+	 */
+	default Object getKey(DocumentationNodeImpl node) {
+		return node;
+	}
+
+	/**
+	 * @param str String to hash.
+	 * @return Short id derived from the string's SHA-256 hash. The first character is a letter so hash ids don't clash with positional ids.
+	 */
+	static String hash(String str) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(str.getBytes(StandardCharsets.UTF_8));
+			StringBuilder ret = new StringBuilder(HASH_LENGTH);
+			ret.append((char) ('a' + (digest[0] & 0xFF) % 26));
+			// Base32 of the following bytes.
+			int buffer = 0;
+			int bits = 0;
+			for (int i = 1; ret.length() < HASH_LENGTH; ) {
+				if (bits < 5) {
+					buffer = (buffer << 8) | (digest[i++] & 0xFF);
+					bits += 8;
+				}
+				int digit = (buffer >> (bits - 5)) & 0x1F;
+				bits -= 5;
+				ret.append("abcdefghijklmnopqrstuvwxyz234567".charAt(digit));
+			}
+			return ret.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,52 @@
+package org.nasdanika.docgen;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Maps objects documented by the nodes of a documentation tree to their documentation paths.
+ * The index is built in one traversal of the tree and then resolves paths in constant time.
+ * Objects are compared by identity. The index is not modified after construction and can be used by multiple threads.
+ * @author Pavel Vlasov
+ *
+ */
+public class ObjectPathIndex implements Function<Object, String> {
+
+	private Map<Object, String> index = new IdentityHashMap<>();
+
+	/**
+	 * @param root Root documentation node.
+	 * @param release If true, nodes are released with {@link DocumentationNode#release()} after they and their subtrees are indexed.
+	 */
+	public ObjectPathIndex(DocumentationNode root, boolean release) {
+		root.walk(this::index, release ? DocumentationNode::release : null);
+	}
+
+	private void index(DocumentationNode node) {
+		for (Object documentedObject: node.getDocumentedObjects()) {
+			if (documentedObject != null && !index.containsKey(documentedObject)) {
+				String path = node.getObjectPath(documentedObject);
+				if (path != null) {
+					index.put(documentedObject, path);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return Path to the object documentation relative to the doc folder or null if the object is not documented in the tree.
+	 */
+	@Override
+	public String apply(Object object) {
+		return object == null ? null : index.get(object);
+	}
+
+	/**
+	 * @return Number of indexed objects.
+	 */
+	public int size() {
+		return index.size();
+	}
+
+}
@@ -0,0 +1,50 @@
+package org.nasdanika.docgen;
+
+import org.nasdanika.codegen.CodegenFactory;
+import org.nasdanika.codegen.Folder;
+import org.nasdanika.codegen.ReconcileAction;
+
+/**
+ * Strategy of documentation page locations in the documentation folder.
+ * Page paths are used as TOC routes and object paths, so links follow the layout.
+ * Pages are loaded into <code>index.html</code>, so relative URL's in page content resolve against the documentation folder regardless of the page location.
+ * @author Pavel Vlasov
+ *
+ */
+public interface PageLayout {
+
+	/**
+	 * All pages in the documentation folder - <code>&lt;id&gt;.html</code>.
+	 */
+	PageLayout FLAT = node -> node.getId() + ".html";
+
+	/**
+	 * @param node Node.
+	 * @return Page path relative to the documentation folder. Path segments are separated by slashes.
+	 */
+	String getPagePath(DocumentationNode node);
+
+	/**
+	 * Finds or creates a folder in the generation model.
+	 * @param docFolder Documentation folder.
+	 * @param path Folder path relative to the documentation folder, segments are separated by slashes. Empty string for the documentation folder.
+	 * @return Folder.
+	 */
+	static Folder getFolder(Folder docFolder, String path) {
+		Folder ret = docFolder;
+		for (String segment: path.split("/")) {
+			if (!segment.isEmpty()) {
+				Folder existing = FolderIndex.get(ret).get(segment);
+				if (existing == null) {
+					existing = CodegenFactory.eINSTANCE.createFolder();
+					existing.setName(segment);
+					existing.setReconcileAction(ReconcileAction.OVERWRITE);
+					ret.getChildren().add(existing);
+				}
+				ret = existing;
+			}
+		}
+		return ret;
+	}
+
+}
@@ -0,0 +1,176 @@
+package org.nasdanika.docgen;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Produces gzip-compressed siblings (<code>&lt;file&gt;.gz</code>) of generated files for servers which serve precompressed content, e.g. nginx with <code>gzip_static</code>.
+ * Submitted content is compressed by the executor as soon as it is submitted, i.e. in parallel with generation of other files.
+ * Compressed content is kept until it is taken by {@link #getCompressed(String)}, e.g. by a generator of the compressed sibling in the generation model, 
+ * so content shall be submitted only for siblings which will be written. Content which is produced during generation can be compressed in the calling thread with {@link #compress(byte[])}.
+ * Generators compress content of files with extensions in the compressible set which is not smaller than the size threshold.
+ * Thread-safe, one instance shall be used for one generation.
+ * @author Pavel Vlasov
+ *
+ */
+public class Precompressor {
+
+	/**
+	 * Name of the file listing precompressed files in the documentation folder.
+	 */
+	public static final String FILE_NAME = "docgen-precompressed.txt";
+
+	/**
+	 * Extension of compressed siblings.
+	 */
+	public static final String EXTENSION = ".gz";
+
+	/**
+	 * Default size threshold, smaller content is not compressed.
+	 */
+	public static final int DEFAULT_THRESHOLD = 1024;
+
+	private Executor executor;
+	private int threshold = DEFAULT_THRESHOLD;
+	private Set<String> extensions = new HashSet<>(Arrays.asList("html", "htm", "js", "css", "json", "svg", "xml", "txt", "md", "map"));
+	private GenerationMetrics metrics;
+
+	// Path -> compressed content.
+	private Map<String, CompletableFuture<byte[]>> results = new ConcurrentSkipListMap<>();
+
+	/**
+	 * Creates precompressor which compresses content in the common fork-join pool.
+	 */
+	public Precompressor() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param executor Executor to compress content.
+	 */
+	public Precompressor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * @param threshold Content smaller than the threshold, in bytes, shall not be compressed. 
+	 * Generators compress content which size is not known when the generation model is built, e.g. deferred content, regardless of the threshold.
+	 */
+	public void setThreshold(int threshold) {
+		this.threshold = threshold;
+	}
+
+	public int getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * @return Mutable set of extensions, without dot, of files to compress. Image and font formats are compressed already and are not in the set by default.
+	 */
+	public Set<String> getExtensions() {
+		return extensions;
+	}
+
+	/**
+	 * @param metrics If not null, compression duration is recorded in the "compress" phase and compressed size in the "compressed-bytes" counter.
+	 */
+	public void setMetrics(GenerationMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @param path
+	 * @return true if the path extension is in the compressible set.
+	 */
+	public boolean isCompressible(String path) {
+		int idx = path.lastIndexOf('.');
+		return idx != -1 && idx > path.lastIndexOf('/') && extensions.contains(path.substring(idx + 1).toLowerCase());
+	}
+
+	/**
+	 * Schedules compression.
+	 * @param path File path relative to the documentation folder.
+	 * @param content Content supplier, called by the executor.
+	 */
+	public void submit(String path, Supplier<byte[]> content) {
+		results.put(path, CompletableFuture.supplyAsync(() -> compress(content.get()), executor));
+	}
+	
+	/**
+	 * Compresses content in the calling thread and records metrics.
+	 * @param content
+	 * @return Compressed content.
+	 */
+	public byte[] compress(byte[] content) {
+		byte[] compressed = metrics == null ? gzip(content) : metrics.time("compress", null, () -> gzip(content));
+		if (metrics != null) {
+			metrics.increment("compressed-bytes", compressed.length);
+		}
+		return compressed;
+	}
+
+	/**
+	 * Schedules compression of a URL content, e.g. a bundle entry.
+	 * @param path File path relative to the documentation folder.
+	 * @param url
+	 */
+	public void submit(String path, URL url) {
+		submit(path, () -> {
+			try (InputStream in = url.openStream()) {
+				return GenerationManifest.read(in);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+	}
+
+	/**
+	 * Compresses content with the best compression level.
+	 * @param content
+	 * @return
+	 */
+	public static byte[] gzip(byte[] content) {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream(content.length / 4 + 64);
+		try (GZIPOutputStream out = new GZIPOutputStream(baos) { { def.setLevel(Deflater.BEST_COMPRESSION); } }) {
+			out.write(content);
+		} catch (IOException e) {
+			// Shall not happen with byte array output stream.
+			throw new UncheckedIOException(e);
+		}
+		return baos.toByteArray();
+	}
+
+	/**
+	 * Waits for compression of submitted content to complete and removes the result. 
+	 * @param path File path relative to the documentation folder.
+	 * @return Compressed content.
+	 * @throws IllegalStateException If content was not submitted or could not be compressed.
+	 */
+	public byte[] getCompressed(String path) {
+		CompletableFuture<byte[]> result = results.remove(path);
+		if (result == null) {
+			throw new IllegalStateException("Content was not submitted for compression: "+path);
+		}
+		try {
+			return result.join();
+		} catch (CompletionException e) {
+			throw new IllegalStateException("Could not compress "+path+": "+e.getCause(), e.getCause());
+		}
+	}
+
+}
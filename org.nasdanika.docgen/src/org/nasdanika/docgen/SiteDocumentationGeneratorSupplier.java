@@ -1,25 +1,35 @@
 package org.nasdanika.docgen;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
+import org.eclipse.core.resources.IFile;
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
 import org.eclipse.core.runtime.Status;
+import org.eclipse.emf.ecore.EObject;
 import org.json.JSONArray;
 import org.json.JSONObject;
-import org.nasdanika.codegen.BinaryFile;
 import org.nasdanika.codegen.BundleResource;
 import org.nasdanika.codegen.CodegenFactory;
 import org.nasdanika.codegen.Folder;
+import org.nasdanika.codegen.Generator;
 import org.nasdanika.codegen.Project;
 import org.nasdanika.codegen.ReconcileAction;
-import org.nasdanika.codegen.StaticBytes;
 import org.nasdanika.codegen.StaticText;
 import org.nasdanika.codegen.TextFile;
 import org.nasdanika.codegen.Workspace;
@@ -39,7 +49,29 @@ import org.nasdanika.html.Theme;
  */
 public class SiteDocumentationGeneratorSupplier extends BaseDocumentationGeneratorSupplier {
 
+	/**
+	 * Name of the folder containing TOC shards.
+	 */
+	public static final String TOC_SHARDS_FOLDER_NAME = "toc";
+
+	/**
+	 * Name of the web resources folder in the documentation folder if resources are not shared.
+	 */
+	public static final String WEB_RESOURCES_FOLDER_NAME = "resources";
+	
 	private DocumentationNode root;
+	private boolean releaseNodes;
+	private boolean parallel;
+	private int tocShardDepth;
+	private boolean tocSearchIndex;
+	private boolean compactToc;
+	private boolean contentSearchIndex;
+	private int iconSpriteSize;
+	private String sharedResourcesFolder;
+	private String webResourcesUrl = WEB_RESOURCES_FOLDER_NAME;
+	
+	// Page path -> metrics type of the node which rendered the page.
+	private Map<String, String> renderTypes = new ConcurrentHashMap<>();
 
 	/**
 	 * 
@@ -54,13 +86,126 @@ public class SiteDocumentationGeneratorSupplier extends BaseDocumentationGenerat
 		super(projectName, folderPath);
 		this.root = root;
 	}
-
-	@Override
-	protected void buildGenerator(Workspace workspace, Project project, Folder docFolder) {
-		// Web resources
+	
+	/**
+	 * @param releaseNodes If true, {@link DocumentationNode#release()} is called for each node after content generators for its subtree are built.
+	 * Use with lazily materialized trees to generate documentation for large models with bounded memory.
+	 */
+	public void setReleaseNodes(boolean releaseNodes) {
+		this.releaseNodes = releaseNodes;
+	}
+	
+	public boolean isReleaseNodes() {
+		return releaseNodes;
+	}
+	
+	/**
+	 * @param parallel If true, content generators of documentation nodes are built concurrently by a parallel stream of the tree in a fork-join pool. 
+	 * Generated output is the same as in the sequential mode: each node builds generators in its own staging folder, staged generators and
+	 * the table of contents are assembled in the tree order once all tasks complete, node icons are registered in the tree order before the stream starts.
+	 * Before the stream starts nodes are {@link DocumentationNode#capture() captured} in a single thread, so their content generators can be built without accessing the live model.
+	 * Only content generators of {@link DocumentationNode#isThreadSafe() thread-safe} nodes are built concurrently, generators of other nodes are built in the capturing thread. 
+	 * Nodes shall add generators only to the documentation folder passed to them.
+	 * In this mode the whole tree and all content generators are held in memory until assembly.
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+	
+	public boolean isParallel() {
+		return parallel;
+	}
+	
+	/**
+	 * @param tocShardDepth If positive, the table of contents is split into shards. <code>toc.js</code> contains top <code>tocShardDepth</code> levels of the tree, 
+	 * children of nodes at that level are stored in <code>toc/&lt;node id&gt;.js</code> shards which are loaded by the TOC tree when the node is expanded. 
+	 * Shards are split further in the same way. If zero, the whole tree is stored in <code>toc.js</code>.
+	 */
+	public void setTocShardDepth(int tocShardDepth) {
+		this.tocShardDepth = tocShardDepth;
+	}
+	
+	public int getTocShardDepth() {
+		return tocShardDepth;
+	}
+	
+	/**
+	 * @param tocSearchIndex If true, {@link TocSearchIndex} of TOC labels is generated and the TOC search box queries the index instead of searching
+	 * the loaded tree. Only paths to matching nodes are loaded and expanded, which is used with sharded TOCs of large trees.
+	 */
+	public void setTocSearchIndex(boolean tocSearchIndex) {
+		this.tocSearchIndex = tocSearchIndex;
+	}
+	
+	public boolean isTocSearchIndex() {
+		return tocSearchIndex;
+	}
+	
+	/**
+	 * @param compactToc If true, TOC nodes are written as positional arrays with icons referenced by index in an icon table 
+	 * and routes derived from node ids instead of an id map. See {@link #writeToc(DocumentationNode, StringBuilder, StringBuilder, Function, Function, int, TocContext)}.
+	 */
+	public void setCompactToc(boolean compactToc) {
+		this.compactToc = compactToc;
+	}
+	
+	public boolean isCompactToc() {
+		return compactToc;
+	}
+	
+	/**
+	 * @param contentSearchIndex If true, full-text {@link ContentSearchIndex} of page content is generated and the left panel
+	 * lists pages matching the search box query. Pages rendered during work execution are indexed when they are rendered.
+	 */
+	public void setContentSearchIndex(boolean contentSearchIndex) {
+		this.contentSearchIndex = contentSearchIndex;
+	}
+	
+	public boolean isContentSearchIndex() {
+		return contentSearchIndex;
+	}
+	
+	/**
+	 * @param iconSpriteSize If positive, TOC icons not larger than this size (up to 24 pixels) are packed into a single sprite sheet 
+	 * to load them in one request. Icons in page content are not affected.
+	 */
+	public void setIconSpriteSize(int iconSpriteSize) {
+		this.iconSpriteSize = iconSpriteSize;
+	}
+	
+	public int getIconSpriteSize() {
+		return iconSpriteSize;
+	}
+	
+	/**
+	 * @param sharedResourcesFolder If not null, web resources are written to a sub-folder of this folder named after the resources content hash, 
+	 * and documentation pages reference them there. The folder path is relative to the project, the project is the same as of the documentation folder. 
+	 * Sites sharing the folder write the resources once - existing files in a version sub-folder which already contains the manifest are not overwritten. 
+	 * The check is performed by the {@link #createSharedResourcesFilter(IPath) overwrite filter} during work execution, i.e. in the workspace operation which writes the resources.
+	 * The folder path may contain multiple segments separated by slashes.
+	 * Archives written by {@link #writeArchive(java.io.OutputStream)} contain their own web resources.
+	 */
+	public void setSharedResourcesFolder(String sharedResourcesFolder) {
+		this.sharedResourcesFolder = sharedResourcesFolder;
+	}
+	
+	public String getSharedResourcesFolder() {
+		return sharedResourcesFolder;
+	}
+	
+	/**
+	 * @return Web resources URL relative to the documentation folder, without trailing slash. 
+	 * It is computed by {@link #buildGenerator(Workspace, Project, Folder)}.
+	 */
+	public String getWebResourcesUrl() {
+		return webResourcesUrl;
+	}
+	
+	/**
+	 * @return Bundle resource for web resources - Bootstrap, jQuery, jstree, etc. The name of the returned resource is not set. 
+	 */
+	protected BundleResource createWebResources() {
 		BundleResource webResources = CodegenFactory.eINSTANCE.createBundleResource();
-		docFolder.getChildren().add(webResources);
-		webResources.setName("resources");
 		webResources.setBundle("org.nasdanika.web.resources");
 		webResources.setReconcileAction(ReconcileAction.OVERWRITE);
 		webResources.getPaths().add("/bootstrap/");
@@ -70,7 +215,121 @@ public class SiteDocumentationGeneratorSupplier extends BaseDocumentationGenerat
 		webResources.getPaths().add("/jstree/");
 		webResources.getPaths().add("/js/");
 		webResources.getPaths().add("/images/");		
-		webResources.getPaths().add("/img/");		
+		webResources.getPaths().add("/img/");
+		return webResources;
+	}
+	
+	/**
+	 * Adds web resources to a version sub-folder of the shared resources folder. 
+	 * Whether the version folder is complete is decided by the {@link #createSharedResourcesFilter(IPath) overwrite filter} during work execution.
+	 * @param project
+	 * @param webResources
+	 * @return Path of the version folder relative to the project.
+	 */
+	protected IPath shareWebResources(Project project, BundleResource webResources) {
+		GenerationManifest manifest = new GenerationManifest();
+		try {
+			hashBundleResource(webResources).forEach(manifest::put);
+		} catch (IOException e) {
+			throw new IllegalStateException("Could not hash web resources: "+e, e);
+		}
+		String manifestContent = manifest.toString();
+		String version = GenerationManifest.hash(manifestContent).substring(0, 16);
+		IPath versionPath = new Path(sharedResourcesFolder).append(version);
+		
+		Folder sharedFolder = null;
+		for (Object resource: project.getResources()) {
+			if (resource instanceof Folder && versionPath.segment(0).equals(((Folder) resource).getName())) {
+				sharedFolder = (Folder) resource;
+				break;
+			}
+		}
+		if (sharedFolder == null) {
+			sharedFolder = CodegenFactory.eINSTANCE.createFolder();
+			sharedFolder.setName(versionPath.segment(0));
+			sharedFolder.setReconcileAction(ReconcileAction.MERGE);
+			project.getResources().add(sharedFolder);
+		}
+		Folder versionFolder = getMergeFolder(sharedFolder, versionPath.removeFirstSegments(1).toString());
+		versionFolder.getChildren().add(webResources);
+		
+		// Version folder content is immutable, the manifest is written last and marks the folder as complete.
+		TextFile manifestFile = CodegenFactory.eINSTANCE.createTextFile();
+		manifestFile.setName(GenerationManifest.FILE_NAME);
+		manifestFile.setReconcileAction(ReconcileAction.OVERWRITE);
+		StaticText manifestText = CodegenFactory.eINSTANCE.createStaticText();
+		manifestText.setContent(manifestContent);
+		manifestFile.getGenerators().add(manifestText);
+		versionFolder.getChildren().add(manifestFile);
+		
+		return versionPath;
+	}
+	
+	/**
+	 * Creates overwrite filter which returns false for existing files in the shared web resources version folder if the folder contains the manifest, i.e. it is complete.
+	 * The manifest is checked when the filter is called during work execution, so sites generated one after another write the resources once.
+	 * @param versionPath Path of the version folder relative to the project.
+	 * @return
+	 */
+	protected Predicate<Object> createSharedResourcesFilter(IPath versionPath) {
+		return obj -> {
+			if (obj instanceof IResource 
+					&& ((IResource) obj).getProject().getName().equals(getProjectName()) 
+					&& versionPath.isPrefixOf(((IResource) obj).getProjectRelativePath())) {
+				IFile versionManifest = ResourcesPlugin.getWorkspace().getRoot().getProject(getProjectName()).getFolder(versionPath).getFile(GenerationManifest.FILE_NAME);
+				return !versionManifest.exists();
+			}
+			return true;
+		};
+	}
+	
+	/**
+	 * @param from Folder path.
+	 * @param to Target path.
+	 * @return Target path relative to the folder path.
+	 */
+	protected static String relativize(String from, String to) {
+		String[] fromSegments = from.split("/+");
+		String[] toSegments = to.split("/+");
+		int common = 0;
+		while (common < fromSegments.length && common < toSegments.length && fromSegments[common].equals(toSegments[common])) {
+			++common;
+		}
+		StringBuilder ret = new StringBuilder();
+		for (int i = common; i < fromSegments.length; ++i) {
+			if (!fromSegments[i].isEmpty()) {
+				ret.append("../");
+			}
+		}
+		for (int i = common; i < toSegments.length; ++i) {
+			ret.append(toSegments[i]);
+			if (i < toSegments.length - 1) {
+				ret.append('/');
+			}
+		}
+		return ret.length() == 0 ? "." : ret.toString();
+	}
+	
+	/**
+	 * @return Pool to build content generators in the parallel mode. This implementation returns the common pool.
+	 */
+	protected ForkJoinPool getForkJoinPool() {
+		return ForkJoinPool.commonPool();
+	}
+
+	@Override
+	protected void buildGenerator(Workspace workspace, Project project, Folder docFolder) {
+		// Web resources
+		BundleResource webResources = createWebResources();
+		if (sharedResourcesFolder == null || isArchive()) {
+			webResources.setName(WEB_RESOURCES_FOLDER_NAME);
+			docFolder.getChildren().add(webResources);
+			webResourcesUrl = WEB_RESOURCES_FOLDER_NAME;
+		} else {
+			IPath versionPath = shareWebResources(project, webResources);
+			addOverwriteFilter(createSharedResourcesFilter(versionPath));
+			webResourcesUrl = relativize(getFolderPath(), versionPath.toString());
+		}
 
 		// Left panel
 		BundleResource jsResources = CodegenFactory.eINSTANCE.createBundleResource();
@@ -78,111 +337,253 @@ public class SiteDocumentationGeneratorSupplier extends BaseDocumentationGenerat
 		jsResources.setReconcileAction(ReconcileAction.OVERWRITE);
 		jsResources.setBundle("org.nasdanika.docgen");
 		jsResources.getPaths().add("/resources/js/left-panel.js");
+		if (contentSearchIndex) {
+			jsResources.getPaths().add("/resources/js/content-search.js");
+		}
 
 		// index.html
 		TextFile indexHtml = CodegenFactory.eINSTANCE.createTextFile();
 		indexHtml.setName("index.html");
 		docFolder.getChildren().add(indexHtml);
 		indexHtml.setReconcileAction(ReconcileAction.OVERWRITE);
+		// Content is generated when it is known whether the icon sprite sheet was written.
 		StaticText indexText = CodegenFactory.eINSTANCE.createStaticText();
-		indexText.setContent(generateIndexHtml());
 		indexHtml.getGenerators().add(indexText);
 		
 		// toc.js
-		final JSONObject idMap = new JSONObject();
-		JSONArray tree = new JSONArray();
+		StringBuilder idMap = new StringBuilder();
+		StringBuilder tree = createTocBuffer();
+		int treeStart = tree.length();
 		// Root is not rendered - just a holder for children.
 
-		// Icons
-		Folder iconsFolder = CodegenFactory.eINSTANCE.createFolder();
-		iconsFolder.setReconcileAction(ReconcileAction.OVERWRITE);
-		iconsFolder.setName("icons");
-		
-		Map<Object, String> iconMap = new HashMap<>();
-		Set<String> iconNames = new HashSet<>();
+		// TOC shards and search index
+		TocContext tocContext = createTocContext();
+		tocContext.shardsFolder = CodegenFactory.eINSTANCE.createFolder();
+		tocContext.shardsFolder.setReconcileAction(ReconcileAction.OVERWRITE);
+		tocContext.shardsFolder.setName(TOC_SHARDS_FOLDER_NAME);
+		if (tocSearchIndex) {
+			tocContext.searchIndex = new TocSearchIndex();
+		}
+		if (contentSearchIndex) {
+			tocContext.contentSearchIndex = new ContentSearchIndex();
+		}
 		
-		Function<Object, String> iconManager = icon -> {
-			if (icon == null) {
-				return null;
-			}
-			String existingIcon = iconMap.get(icon);
-			if (existingIcon != null) {
-				return existingIcon;
-			}
-			String iconName;
-			BinaryFile iconFile = null;
-			if (icon instanceof URL) {
-				URL iconURL = (URL) icon;
-				String iconFilePath = iconURL.getFile();
-				int lastSlash = iconFilePath.lastIndexOf("/");
-				iconName = lastSlash == -1 ? iconFilePath : iconFilePath.substring(lastSlash+1);		
-				iconFile = CodegenFactory.eINSTANCE.createBinaryFile();
-				iconFile.setReconcileAction(ReconcileAction.OVERWRITE);
-				iconsFolder.getChildren().add(iconFile);
-				StaticBytes content = CodegenFactory.eINSTANCE.createStaticBytes();
-				iconFile.getGenerators().add(content);
-				ByteArrayOutputStream baos = new ByteArrayOutputStream();
-				try (InputStream is = iconURL.openStream()) {
-					int b;
-					while ((b = is.read()) != -1) {
-						baos.write(b);
+		// Icons
+		IconStore iconStore = createIconStore();
+		Function<Object, String> iconManager = iconStore;
+		Function<Object, String> tocIconManager = iconStore::getTocIcon;
+
+		renderTypes.clear();
+		Function<Object, String> objectPathResolver = time("tree", null, this::createObjectPathResolver);
+		Function<DocumentationNode, String> contentGeneratorBuilder = dn -> time("content", getMetrics() == null ? null : getMetricsType(dn), () -> dn.buildContentGenerator(workspace, project, docFolder, objectPathResolver, iconManager));
+		if (parallel) {
+			// Capturing nodes in this thread and registering node icons in the tree order for icon names to be the same as in the sequential mode.
+			// Content generators of nodes which are not thread-safe are built here as well.
+			// Metrics types are computed here too because computing them may access the live model.
+			// The staged content map is populated before the stream starts and is only read by the stream tasks.
+			Map<DocumentationNode, StagedContent> stagedContent = new IdentityHashMap<>();
+			root.accept(node -> {
+				if (node != root) {
+					StagedContent sc = new StagedContent();
+					sc.metricsType = getMetrics() == null ? null : getMetricsType(node);
+					stagedContent.put(node, sc);
+					time("capture", sc.metricsType, () -> {
+						node.capture();
+						return null;
+					});
+					tocIconManager.apply(node.getIcon());
+					if (!node.isThreadSafe()) {
+						sc.entryPoint = time("content", sc.metricsType, () -> node.buildContentGenerator(workspace, project, sc.stagingFolder, objectPathResolver, iconManager));
 					}
-					baos.close();
-				} catch (IOException e) {
-					Activator.getDefault().getLog().log(new Status(Status.WARNING, "org.nasdanika.docgen", "Unable to store icon: "+icon, e));
-				} 
-				content.setContent(baos.toByteArray());
-			} else {
-				return null;
-			}
+				}
+			});
+			
+			// Parallel stream tasks run in the pool of the thread which executes the terminal operation.
+			getForkJoinPool().submit(() -> root.parallelStream().filter(node -> node != root && node.isThreadSafe()).forEach(node -> {
+				StagedContent sc = stagedContent.get(node);
+				sc.entryPoint = time("content", sc.metricsType, () -> node.buildContentGenerator(workspace, project, sc.stagingFolder, objectPathResolver, iconManager));
+			})).join();
 			
-			if (iconNames.add(iconName)) {
-				String iconPath = "icons/"+iconName;
-				iconMap.put(icon, iconPath);
-				if (iconFile != null) {
-					iconFile.setName(iconName);
+			Function<DocumentationNode, String> contentGeneratorAssembler = node -> {
+				StagedContent sc = stagedContent.remove(node);
+				merge(sc.stagingFolder, docFolder);
+				return sc.entryPoint;
+			};
+			for (DocumentationNode dn: root.getChildren()) {
+				if (tree.length() > treeStart) {
+					tree.append(',');
 				}
-				return iconPath;
+				writeToc(dn, tree, idMap, contentGeneratorAssembler, tocIconManager, 1, tocContext);
 			}
-			int dotIdx = iconName.lastIndexOf('.');
-			String prefix = dotIdx == -1 ? iconName : iconName.substring(0, dotIdx);
-			String suffix = dotIdx == -1 ? "" : iconName.substring(dotIdx);
-			for (int counter = 0; ; ++counter) {
-				String altIconName = prefix + "-" + Integer.toString(++counter, Character.MAX_RADIX) + suffix;
-				if (iconNames.add(altIconName)) {
-					String iconPath = "icons/"+altIconName;
-					iconMap.put(icon, iconPath);
-					if (iconFile != null) {
-						iconFile.setName(altIconName);
-					}
-					return iconPath;
-				}				
+		} else {
+			for (DocumentationNode dn: root.getChildren()) {
+				if (tree.length() > treeStart) {
+					tree.append(',');
+				}
+				writeToc(dn, tree, idMap, contentGeneratorBuilder, tocIconManager, 1, tocContext);
 			}
-			
-			
-		};
-
-		for (DocumentationNode dn: root.getChildren()) {
-			tree.put(createToc(dn, idMap, workspace, project, docFolder, root::getObjectPath, iconManager));
 		}
 		
-		JSONObject toc = new JSONObject();
-		toc.put("idMap", idMap);
-		toc.put("tree", tree);
+		JSONObject tocOptions = new JSONObject();
+		if (tocContext.searchIndex != null) {
+			tocOptions.put("searchIndex", true);
+		}
+		if (tocContext.contentSearchIndex != null) {
+			time("search-index", null, () -> {
+				boolean deferred = indexContent(docFolder, "", tocContext.pages, tocContext.contentSearchIndex);
+				tocContext.contentSearchIndex.write(docFolder, deferred);
+				if (deferred) {
+					// Shards are written after all pages were rendered and indexed.
+					addFinalFiles(tocContext.contentSearchIndex::getShardFiles);
+				}
+				return null;
+			});
+			JSONObject contentSearch = new JSONObject();
+			contentSearch.put("shardKeyLength", tocContext.contentSearchIndex.getShardKeyLength());
+			tocOptions.put("contentSearch", contentSearch);
+		}
 		
 		TextFile tocJs = CodegenFactory.eINSTANCE.createTextFile();
 		tocJs.setName("toc.js");
 		docFolder.getChildren().add(tocJs);
 		tocJs.setReconcileAction(ReconcileAction.OVERWRITE);
 		StaticText tocJsText = CodegenFactory.eINSTANCE.createStaticText();
-		tocJsText.setContent("define("+toc+")");
+		tocJsText.setContent(time("toc", null, () -> assembleToc(tree, idMap, tocOptions, tocContext)));
 		tocJs.getGenerators().add(tocJsText);
 		
-		if (!iconsFolder.getChildren().isEmpty()) {
-			docFolder.getChildren().add(iconsFolder);
+		if (!tocContext.shardsFolder.getChildren().isEmpty()) {
+			docFolder.getChildren().add(tocContext.shardsFolder);
+		}
+		
+		if (tocContext.searchIndex != null) {
+			time("toc-search-index", null, () -> {
+				tocContext.searchIndex.write(docFolder);
+				return null;
+			});
+		}
+		
+		boolean iconSprite = false;
+		try {
+			iconSprite = iconStore.writeSprite();
+		} catch (IOException e) {
+			Activator.getDefault().getLog().log(new Status(Status.WARNING, Activator.PLUGIN_ID, "Unable to write icon sprite sheet", e));
+		}
+		indexText.setContent(iconSprite ? generateIndexHtml(true) : generateIndexHtml());
+		if (!iconStore.getFolder().getChildren().isEmpty()) {
+			docFolder.getChildren().add(iconStore.getFolder());
+		}
+		if (getMetrics() != null) {
+			getMetrics().increment("icons", iconStore.size());
+		}
+	}
+	
+	/**
+	 * Adds content of pages to the search index. Static content is indexed immediately, deferred content generators are wrapped 
+	 * to index content when it is produced during work execution.
+	 * @param folder Folder containing pages.
+	 * @param prefix Folder path relative to the documentation folder.
+	 * @param pages Page path to page number in the index.
+	 * @param index Content search index.
+	 * @return true if there are deferred pages.
+	 */
+	protected boolean indexContent(Folder folder, String prefix, Map<String, Integer> pages, ContentSearchIndex index) {
+		boolean ret = false;
+		for (Object child: folder.getChildren()) {
+			if (child instanceof Folder) {
+				ret = indexContent((Folder) child, prefix + ((Folder) child).getName() + "/", pages, index) || ret;
+			} else if (child instanceof TextFile) {
+				Integer doc = pages.get(prefix + ((TextFile) child).getName());
+				if (doc != null) {
+					List<Generator<String>> generators = ((TextFile) child).getGenerators();
+					for (int i = 0; i < generators.size(); ++i) {
+						Generator<String> generator = generators.get(i);
+						if (generator instanceof DeferredText) {
+							DeferredText deferredText = (DeferredText) generator;
+							generators.set(i, new DeferredText(() -> {
+								String content = deferredText.getContent();
+								index.index(doc, content);
+								return content;
+							}));
+							ret = true;
+						} else if (generator instanceof StaticText) {
+							index.index(doc, ((StaticText) generator).getContent());
+						}
+					}
+				}
+			}
+		}
+		return ret;
+	}
+	
+	/**
+	 * @param node
+	 * @return Type of the node for metrics - node class name and, if the node documents an {@link EObject}, its EClass name.
+	 */
+	protected String getMetricsType(DocumentationNode node) {
+		String ret = node.getClass().getSimpleName();
+		for (Object documentedObject: node.getDocumentedObjects()) {
+			if (documentedObject instanceof EObject) {
+				return ret + "/" + ((EObject) documentedObject).eClass().getName();
+			}
+		}
+		return ret;
+	}
+	
+	@Override
+	protected String getRenderType(String path) {
+		return renderTypes.get(path);
+	}
+	
+	/**
+	 * Creates icon store. This implementation creates {@link IconStore} with sprite size set to {@link #getIconSpriteSize()}.
+	 * @return
+	 */
+	protected IconStore createIconStore() {
+		IconStore ret = new IconStore();
+		ret.setSpriteSize(iconSpriteSize);
+		return ret;
+	}
+	
+	/**
+	 * Creates resolver of object documentation paths. This implementation builds {@link ObjectPathIndex} of the tree. 
+	 * In release mode nodes are released after indexing.
+	 * @return
+	 */
+	protected Function<Object, String> createObjectPathResolver() {
+		return new ObjectPathIndex(root, releaseNodes);
+	}
+	
+	/**
+	 * Moves children of the source folder to the target folder. Children folders are merged with target folders with the same name, e.g. page layout folders.
+	 * @param source
+	 * @param target
+	 */
+	protected static void merge(Folder source, Folder target) {
+		for (Object child: new ArrayList<>(source.getChildren())) {
+			if (child instanceof Folder) {
+				Folder childFolder = (Folder) child;
+				Folder targetChild = FolderIndex.get(target).get(childFolder.getName());
+				if (targetChild != null) {
+					merge(childFolder, targetChild);
+					continue;
+				}
+			}
+			target.getChildren().add(child);
 		}
 	}
 	
+	/**
+	 * Content generators of a node built in the fork-join pool in the parallel mode. 
+	 * Generators are built in a staging folder to be moved to the documentation folder during assembly. 
+	 */
+	private static class StagedContent {
+		
+		Folder stagingFolder = CodegenFactory.eINSTANCE.createFolder();
+		String entryPoint;
+		String metricsType;
+		
+	}	
+	
 	/**
 	 * 
 	 * @param node
@@ -193,7 +594,10 @@ public class SiteDocumentationGeneratorSupplier extends BaseDocumentationGenerat
 	 * @param objectPathResolver
 	 * @param iconManager Takes image object, whatever it is, stores known image types to the generation model under "icons" folder and returns icon path. Dedups.
 	 * @return
+	 * @deprecated TOC JSON is written as text and parsed back to create the object. 
+	 * Use {@link #writeToc(DocumentationNode, StringBuilder, StringBuilder, Function, Function, int, TocContext)}.
 	 */
+	@Deprecated
 	protected JSONObject createToc(
 			DocumentationNode node, 
 			JSONObject idMap, 
@@ -202,31 +606,319 @@ public class SiteDocumentationGeneratorSupplier extends BaseDocumentationGenerat
 			Folder docFolder, 
 			Function<Object, String> objectPathResolver,
 			Function<Object, String> iconManager) {
-		JSONObject ret = new JSONObject();
-		ret.put("text", node.getLabel());
-		String iconPath = iconManager.apply(node.getIcon());
-		if (iconPath != null) {
-			ret.put("icon", iconPath);
+		
+		return createToc(node, idMap, dn -> dn.buildContentGenerator(workspace, project, docFolder, objectPathResolver, iconManager), iconManager);
+	}
+	
+	/**
+	 * 
+	 * @param node
+	 * @param idMap
+	 * @param contentGeneratorBuilder Builds node content generators and returns content entry point. 
+	 * @param iconManager Takes image object, whatever it is, stores known image types to the generation model under "icons" folder and returns icon path. Dedups.
+	 * @return
+	 * @deprecated TOC JSON is written as text and parsed back to create the object. 
+	 * Use {@link #writeToc(DocumentationNode, StringBuilder, StringBuilder, Function, Function, int, TocContext)}.
+	 */
+	@Deprecated
+	protected JSONObject createToc(
+			DocumentationNode node, 
+			JSONObject idMap, 
+			Function<DocumentationNode, String> contentGeneratorBuilder,
+			Function<Object, String> iconManager) {
+		
+		StringBuilder out = new StringBuilder();
+		StringBuilder nodeIdMap = new StringBuilder();
+		writeToc(node, out, nodeIdMap, contentGeneratorBuilder, iconManager, 1, new TocContext());
+		JSONObject nodeIdMapObject = new JSONObject("{" + nodeIdMap + "}");
+		for (String id: nodeIdMapObject.keySet()) {
+			idMap.put(id, nodeIdMapObject.get(id));
+		}
+		return new JSONObject(out.toString());
+	}
+	
+	/**
+	 * @return New TOC context in the configured TOC format. 
+	 */
+	protected TocContext createTocContext() {
+		TocContext ret = new TocContext();
+		ret.compact = compactToc;
+		return ret;
+	}
+	
+	/**
+	 * @return Buffer for toc.js module text with the module header and the opening bracket of the tree.
+	 */
+	protected StringBuilder createTocBuffer() {
+		return new StringBuilder("define({\"tree\":[");
+	}
+	
+	/**
+	 * Completes toc.js module text in place, so the tree is not copied.
+	 * @param toc Buffer created by {@link #createTocBuffer()} followed by comma-separated top level nodes 
+	 * written by {@link #writeToc(DocumentationNode, StringBuilder, StringBuilder, Function, Function, int, TocContext)}.
+	 * @param idMap Comma-separated id map entries, ignored in the compact format. 
+	 * @param options Additional TOC properties, e.g. search index flags.
+	 * @param context
+	 * @return
+	 */
+	protected String assembleToc(StringBuilder toc, CharSequence idMap, JSONObject options, TocContext context) {
+		toc.append(']');
+		if (context.compact) {
+			toc.append(",\"compact\":true,\"icons\":").append(new JSONArray(context.iconIndices.keySet()));
+		} else {
+			toc.append(",\"idMap\":{").append(idMap).append('}');
 		}
+		if (options != null) {
+			for (String option: options.keySet()) {
+				toc.append(',').append(JSONObject.quote(option)).append(':').append(JSONObject.valueToString(options.get(option)));
+			}
+		}
+		return toc.append("})").toString();
+	}
+	
+	/**
+	 * State shared by TOC nodes during TOC creation.
+	 */
+	protected static class TocContext {
 		
-		ret.put("id", node.getId());
-		String entryPoint = node.buildContentGenerator(workspace, project, docFolder, objectPathResolver, iconManager);
-		idMap.put(node.getId(), entryPoint==null ? "#" : "#router/doc-content/"+entryPoint);
-
-		JSONArray children = new JSONArray();
+		/**
+		 * If true, nodes are written in the compact positional format.
+		 */
+		protected boolean compact;
+		
+		/**
+		 * Icon paths mapped to their indices in the icon table of the compact format.
+		 */
+		protected Map<String, Integer> iconIndices = new LinkedHashMap<>();
+		
+		/**
+		 * Folder for TOC shards. If null, TOC is not sharded.
+		 */
+		protected Folder shardsFolder;
+		
+		/**
+		 * TOC labels search index, can be null.
+		 */
+		protected TocSearchIndex searchIndex;
+		
+		/**
+		 * Page content search index, can be null.
+		 */
+		protected ContentSearchIndex contentSearchIndex;
+		
+		/**
+		 * Page paths mapped to page numbers in the content search index.
+		 */
+		protected Map<String, Integer> pages = new HashMap<>();
+		
+		/**
+		 * Ids of ancestors of the current node.
+		 */
+		protected Deque<String> ancestorIds = new ArrayDeque<>();
+		
+		public TocContext() {
+		}
+		
+	}
+	
+	/**
+	 * State of a node being written by {@link SiteDocumentationGeneratorSupplier#writeToc(DocumentationNode, StringBuilder, StringBuilder, Function, Function, int, TocContext)}.
+	 */
+	private static class TocFrame {
+		
+		DocumentationNode node;
+		StringBuilder out;
+		String id;
+		String entryPoint;
+		boolean hasChildren;
+		Iterator<DocumentationNode> children;
+		boolean first = true;
+		
+		// Output of children - node output or shard buffers.
+		StringBuilder childrenOut;
+		StringBuilder childrenIdMap;
+		int childrenDepth;
 		
-		for (DocumentationNode child: node.getChildren()) {
-			children.put(createToc(child, idMap, workspace, project, docFolder, objectPathResolver, iconManager));
+		// Not null if children are written to a shard.
+		StringBuilder shardIdMap;
+		
+	}
+	
+	/**
+	 * Builds node content generators and writes node TOC JSON. 
+	 * In the default format a node is written as <code>{"text": label, "icon": icon path, "id": id, "children": [child nodes] or true if children are in a shard}</code>
+	 * and its route is written to the id map. In the compact format a node is written as <code>[label, icon index or -1, id, [child nodes] or 1 or 0 if no children, entry point]</code>, 
+	 * the entry point is omitted if it is <code>&lt;id&gt;.html</code> and is 0 if the node has no content; there is no id map.
+	 * The subtree is traversed iteratively, so its depth is not limited by the stack size.
+	 * @param node
+	 * @param out Output.
+	 * @param idMap Output for comma-separated <code>"id":"route"</code> entries of the default format.
+	 * @param contentGeneratorBuilder Builds node content generators and returns content entry point. 
+	 * @param iconManager Takes image object, whatever it is, stores known image types to the generation model under "icons" folder and returns icon path. Dedups.
+	 * @param depth Node depth in the TOC shard, starting from 1.
+	 * @param context Format, shards folder, search index, and ancestors of the node.
+	 */
+	protected void writeToc(
+			DocumentationNode node, 
+			StringBuilder out,
+			StringBuilder idMap, 
+			Function<DocumentationNode, String> contentGeneratorBuilder,
+			Function<Object, String> iconManager,
+			int depth,
+			TocContext context) {
+		
+		Deque<TocFrame> stack = new ArrayDeque<>();
+		stack.push(openToc(node, out, idMap, contentGeneratorBuilder, iconManager, depth, context));
+		while (!stack.isEmpty()) {
+			TocFrame frame = stack.peek();
+			if (frame.children != null && frame.children.hasNext()) {
+				DocumentationNode child = frame.children.next();
+				if (!frame.first) {
+					frame.childrenOut.append(',');
+				}
+				frame.first = false;
+				stack.push(openToc(child, frame.childrenOut, frame.childrenIdMap, contentGeneratorBuilder, iconManager, frame.childrenDepth, context));
+			} else {
+				closeToc(stack.pop(), context);
+			}
+		}
+	}
+	
+	/**
+	 * Builds node content generators, writes node TOC JSON up to its children. 
+	 */
+	private TocFrame openToc(
+			DocumentationNode node, 
+			StringBuilder out,
+			StringBuilder idMap, 
+			Function<DocumentationNode, String> contentGeneratorBuilder,
+			Function<Object, String> iconManager,
+			int depth,
+			TocContext context) {
+		
+		TocFrame frame = new TocFrame();
+		frame.node = node;
+		frame.out = out;
+		String label = node.getLabel();
+		String iconPath = iconManager.apply(node.getIcon());
+		String id = frame.id = node.getId();
+		String entryPoint = frame.entryPoint = contentGeneratorBuilder.apply(node);
+		if (!context.compact) {
+			if (idMap.length() > 0) {
+				idMap.append(',');
+			}
+			idMap.append(JSONObject.quote(id)).append(':').append(JSONObject.quote(entryPoint==null ? "#" : "#router/doc-content/"+entryPoint));
+		}
+		if (context.searchIndex != null) {
+			context.searchIndex.add(id, label, context.ancestorIds);
+		}
+		if (getMetrics() != null && entryPoint != null) {
+			renderTypes.put(entryPoint, getMetricsType(node));
+		}
+		if (context.contentSearchIndex != null && entryPoint != null && !context.pages.containsKey(entryPoint)) {
+			context.pages.put(entryPoint, context.contentSearchIndex.addDocument(entryPoint, label));
+		}
+		context.ancestorIds.addLast(id);
+		
+		if (context.compact) {
+			int iconIndex = -1;
+			if (iconPath != null) {
+				Integer existingIndex = context.iconIndices.get(iconPath);
+				if (existingIndex == null) {
+					existingIndex = context.iconIndices.size();
+					context.iconIndices.put(iconPath, existingIndex);
+				}
+				iconIndex = existingIndex;
+			}
+			out.append('[').append(label == null ? "null" : JSONObject.quote(label)).append(',').append(iconIndex).append(',').append(JSONObject.quote(id));
+		} else {
+			out.append('{');
+			if (label != null) {
+				out.append("\"text\":").append(JSONObject.quote(label)).append(',');
+			}
+			if (iconPath != null) {
+				out.append("\"icon\":").append(JSONObject.quote(iconPath)).append(',');
+			}
+			out.append("\"id\":").append(JSONObject.quote(id));
 		}
 
-		if (children.length() > 0) {
-			ret.put("children", children);
+		List<DocumentationNode> children = node.getChildren();
+		frame.hasChildren = !children.isEmpty();
+		if (frame.hasChildren) {
+			frame.children = children.iterator();
+			if (context.shardsFolder != null && tocShardDepth > 0 && depth >= tocShardDepth) {
+				// Children go to a shard loaded on demand. The shard module is written to the children buffer, so it is not copied.
+				frame.childrenOut = new StringBuilder("define({\"tree\":[");
+				frame.childrenIdMap = frame.shardIdMap = new StringBuilder();
+				frame.childrenDepth = 1;
+			} else {
+				out.append(context.compact ? ",[" : ",\"children\":[");
+				frame.childrenOut = out;
+				frame.childrenIdMap = idMap;
+				frame.childrenDepth = depth + 1;
+			}
+		}
+		return frame;
+	}
+	
+	/**
+	 * Completes node TOC JSON after its children are written.
+	 */
+	private void closeToc(TocFrame frame, TocContext context) {
+		StringBuilder out = frame.out;
+		if (frame.hasChildren) {
+			if (frame.shardIdMap != null) {
+				StringBuilder shard = frame.childrenOut.append(']');
+				StringBuilder shardIdMap = frame.shardIdMap;
+				TextFile shardJs = CodegenFactory.eINSTANCE.createTextFile();
+				shardJs.setName(frame.id+".js");
+				context.shardsFolder.getChildren().add(shardJs);
+				shardJs.setReconcileAction(ReconcileAction.OVERWRITE);
+				StaticText shardJsText = CodegenFactory.eINSTANCE.createStaticText();
+				shardJsText.setContent(time("toc", null, () -> {
+					if (!context.compact) {
+						shard.append(",\"idMap\":{").append(shardIdMap).append('}');
+					}
+					return shard.append("})").toString();
+				}));
+				shardJs.getGenerators().add(shardJsText);
+				
+				out.append(context.compact ? ",1" : ",\"children\":true");
+			} else {
+				out.append(']');
+			}
 		}
 		
-		return ret;
+		if (context.compact) {
+			String entryPoint = frame.entryPoint;
+			if (entryPoint == null || !entryPoint.equals(frame.id + ".html")) {
+				if (!frame.hasChildren) {
+					out.append(",0");
+				}
+				out.append(',').append(entryPoint == null ? "0" : JSONObject.quote(entryPoint));
+			}
+			out.append(']');
+		} else {
+			out.append('}');
+		}
+		
+		context.ancestorIds.removeLast();
+		
+		if (releaseNodes) {
+			frame.node.release();
+		}
 	}	
 	
 	protected String generateIndexHtml() {
+		return generateIndexHtml(false);
+	}
+	
+	/**
+	 * @param iconSprite If true, index.html links the icon sprite sheet stylesheet written by {@link IconStore#writeSprite()}.
+	 * @return index.html content.
+	 */
+	protected String generateIndexHtml(boolean iconSprite) {
 		HTMLFactory htmlFactory = HTMLFactory.INSTANCE;
 		ApplicationPanel appPanel = htmlFactory.applicationPanel()
 				.style(Style.INFO) 
@@ -270,37 +962,40 @@ public class SiteDocumentationGeneratorSupplier extends BaseDocumentationGenerat
 						// --- Stylesheets ---					
 						htmlFactory.tag(TagName.link)
 							.attribute("rel", "stylesheet")
-							.attribute("href", "resources/bootstrap/css/bootstrap.min.css"),							
+							.attribute("href", webResourcesUrl+"/bootstrap/css/bootstrap.min.css"),							
 						htmlFactory.tag(TagName.link)
 							.attribute("rel", "stylesheet")
-							.attribute("href", "resources/bootstrap/css/bootstrap-theme.min.css"),							
+							.attribute("href", webResourcesUrl+"/bootstrap/css/bootstrap-theme.min.css"),							
 						htmlFactory.tag(TagName.link)
 							.attribute("rel", "stylesheet")
-							.attribute("href", "resources/font-awesome/css/font-awesome.min.css"),							
+							.attribute("href", webResourcesUrl+"/font-awesome/css/font-awesome.min.css"),							
 						htmlFactory.tag(TagName.link)
 							.attribute("rel", "stylesheet")
-							.attribute("href", "resources/css/lightbox.css"),							
+							.attribute("href", webResourcesUrl+"/css/lightbox.css"),							
 						htmlFactory.tag(TagName.link)
 							.attribute("rel", "stylesheet")
-							.attribute("href", "resources/highlight/styles/github.css"),							
+							.attribute("href", webResourcesUrl+"/highlight/styles/github.css"),							
 						htmlFactory.tag(TagName.link)
 							.attribute("rel", "stylesheet")
-							.attribute("href", "resources/css/github-markdown.css"),							
+							.attribute("href", webResourcesUrl+"/css/github-markdown.css"),							
 						htmlFactory.tag(TagName.link)
 							.attribute("rel", "stylesheet")
-							.attribute("href", "resources/jstree/themes/default/style.min.css"),
+							.attribute("href", webResourcesUrl+"/jstree/themes/default/style.min.css"),
+						iconSprite ? htmlFactory.tag(TagName.link)
+							.attribute("rel", "stylesheet")
+							.attribute("href", IconStore.FOLDER_NAME+"/"+IconStore.SPRITE_STYLESHEET_NAME) : "",
 							
 						// --- Scripts ---
-						htmlFactory.tag(TagName.script).attribute("src", "resources/js/jquery-1.12.1.min.js"),
-						htmlFactory.tag(TagName.script).attribute("src", "resources/js/underscore-min.js"),
-						htmlFactory.tag(TagName.script).attribute("src", "resources/js/backbone-min.js"),
-						htmlFactory.tag(TagName.script).attribute("src", "resources/bootstrap/js/bootstrap.min.js"),
-						htmlFactory.tag(TagName.script).attribute("src", "resources/js/d3.min.js"), 				
-						htmlFactory.tag(TagName.script).attribute("src", "resources/js/c3.min.js"),												
-						htmlFactory.tag(TagName.script).attribute("src", "resources/js/require.js"),
-						htmlFactory.tag(TagName.script, htmlFactory.interpolate(getClass().getResource("require-config.js"), "base-url", "resources/js")),
-						htmlFactory.tag(TagName.script).attribute("src", "resources/js/lightbox.min.js"),
-						htmlFactory.tag(TagName.script).attribute("src", "resources/highlight/highlight.pack.js")), 				
+						htmlFactory.tag(TagName.script).attribute("src", webResourcesUrl+"/js/jquery-1.12.1.min.js"),
+						htmlFactory.tag(TagName.script).attribute("src", webResourcesUrl+"/js/underscore-min.js"),
+						htmlFactory.tag(TagName.script).attribute("src", webResourcesUrl+"/js/backbone-min.js"),
+						htmlFactory.tag(TagName.script).attribute("src", webResourcesUrl+"/bootstrap/js/bootstrap.min.js"),
+						htmlFactory.tag(TagName.script).attribute("src", webResourcesUrl+"/js/d3.min.js"), 				
+						htmlFactory.tag(TagName.script).attribute("src", webResourcesUrl+"/js/c3.min.js"),												
+						htmlFactory.tag(TagName.script).attribute("src", webResourcesUrl+"/js/require.js"),
+						htmlFactory.tag(TagName.script, htmlFactory.interpolate(getClass().getResource("require-config.js"), "base-url", webResourcesUrl+"/js")),
+						htmlFactory.tag(TagName.script).attribute("src", webResourcesUrl+"/js/lightbox.min.js"),
+						htmlFactory.tag(TagName.script).attribute("src", webResourcesUrl+"/highlight/highlight.pack.js")), 				
 				appPanel);
 		
 		return app.toString();
@@ -0,0 +1,164 @@
+package org.nasdanika.docgen;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.nasdanika.codegen.CodegenFactory;
+import org.nasdanika.codegen.Folder;
+import org.nasdanika.codegen.ReconcileAction;
+import org.nasdanika.codegen.StaticText;
+import org.nasdanika.codegen.TextFile;
+
+/**
+ * Prebuilt index of table of contents labels. Labels are split into lower-case words, words are grouped into shards by their first characters.
+ * Each shard is written to <code>toc-search/&lt;shard key&gt;.js</code> and contains words sorted alphabetically, so the TOC search box can find words starting
+ * with a query token in a single shard without loading the whole tree. Each word references nodes with id, label, and ids of ancestors, so the TOC tree can load
+ * and expand only paths to the matching nodes.
+ * @author Pavel Vlasov
+ *
+ */
+public class TocSearchIndex {
+
+	/**
+	 * Name of the folder containing index shards.
+	 */
+	public static final String FOLDER_NAME = "toc-search";
+
+	/**
+	 * Number of leading word characters used as the shard key. Shorter words are not indexed and query tokens shorter than this length are not looked up in the index.
+	 */
+	public static final int SHARD_KEY_LENGTH = 2;
+
+	/**
+	 * Splits text into words. Shall match tokenization in left-panel.js
+	 */
+	private static final String WORD_SEPARATOR = "[\\s!-/:-@\\[-`{-~]+";
+
+	private List<Object[]> nodes = new ArrayList<>();
+
+	// Shard key -> word -> node indices.
+	private Map<String, Map<String, Set<Integer>>> shards = new TreeMap<>();
+
+	/**
+	 * Adds node to the index.
+	 * @param id Node id.
+	 * @param label Node label.
+	 * @param ancestorIds Ids of node ancestors starting from the top-level TOC node.
+	 */
+	public void add(String id, String label, Collection<String> ancestorIds) {
+		if (id == null || label == null) {
+			return;
+		}
+		int nodeIndex = nodes.size();
+		nodes.add(new Object[] { id, label, new ArrayList<>(ancestorIds) });
+		for (String word: tokenize(label)) {
+			if (word.length() < SHARD_KEY_LENGTH) {
+				// Never looked up - left-panel.js drops shorter query tokens.
+				continue;
+			}
+			Map<String, Set<Integer>> shard = shards.get(shardKey(word));
+			if (shard == null) {
+				shard = new TreeMap<>();
+				shards.put(shardKey(word), shard);
+			}
+			Set<Integer> wordNodes = shard.get(word);
+			if (wordNodes == null) {
+				wordNodes = new LinkedHashSet<>();
+				shard.put(word, wordNodes);
+			}
+			wordNodes.add(nodeIndex);
+		}
+	}
+
+	/**
+	 * @param text
+	 * @return Lower-case words of the text.
+	 */
+	public static List<String> tokenize(String text) {
+		List<String> ret = new ArrayList<>();
+		for (String token: text.toLowerCase(Locale.ROOT).split(WORD_SEPARATOR)) {
+			if (!token.isEmpty()) {
+				ret.add(token);
+			}
+		}
+		return ret;
+	}
+
+	/**
+	 * @param word
+	 * @return File name safe shard key - word prefix with characters other than latin letters and digits replaced with <code>_</code> followed by hex character code.
+	 */
+	public static String shardKey(String word) {
+		StringBuilder ret = new StringBuilder();
+		for (char c: word.substring(0, Math.min(SHARD_KEY_LENGTH, word.length())).toCharArray()) {
+			if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+				ret.append(c);
+			} else {
+				ret.append('_').append(Integer.toHexString(c));
+			}
+		}
+		return ret.toString();
+	}
+
+	/**
+	 * @return true if no nodes were added.
+	 */
+	public boolean isEmpty() {
+		return nodes.isEmpty();
+	}
+
+	/**
+	 * Adds index folder with shard files to the documentation folder.
+	 * Shard format is <code>{ nodes: [[id, label, [ancestor ids]], ...], words: [[word, [node index, ...]], ...] }</code>, words are sorted.
+	 * @param docFolder
+	 */
+	public void write(Folder docFolder) {
+		Folder indexFolder = CodegenFactory.eINSTANCE.createFolder();
+		indexFolder.setName(FOLDER_NAME);
+		indexFolder.setReconcileAction(ReconcileAction.OVERWRITE);
+		for (Entry<String, Map<String, Set<Integer>>> shard: shards.entrySet()) {
+			JSONArray shardNodes = new JSONArray();
+			Map<Integer, Integer> shardNodeIndices = new HashMap<>();
+			JSONArray words = new JSONArray();
+			for (Entry<String, Set<Integer>> word: shard.getValue().entrySet()) {
+				JSONArray wordNodes = new JSONArray();
+				for (Integer nodeIndex: word.getValue()) {
+					Integer shardNodeIndex = shardNodeIndices.get(nodeIndex);
+					if (shardNodeIndex == null) {
+						shardNodeIndex = shardNodes.length();
+						shardNodeIndices.put(nodeIndex, shardNodeIndex);
+						Object[] node = nodes.get(nodeIndex);
+						shardNodes.put(new JSONArray().put(node[0]).put(node[1]).put(new JSONArray((Collection<?>) node[2])));
+					}
+					wordNodes.put(shardNodeIndex);
+				}
+				words.put(new JSONArray().put(word.getKey()).put(wordNodes));
+			}
+			JSONObject shardObject = new JSONObject();
+			shardObject.put("nodes", shardNodes);
+			shardObject.put("words", words);
+
+			TextFile shardJs = CodegenFactory.eINSTANCE.createTextFile();
+			shardJs.setName(shard.getKey()+".js");
+			shardJs.setReconcileAction(ReconcileAction.OVERWRITE);
+			StaticText shardJsText = CodegenFactory.eINSTANCE.createStaticText();
+			shardJsText.setContent("define("+shardObject+")");
+			shardJs.getGenerators().add(shardJsText);
+			indexFolder.getChildren().add(shardJs);
+		}
+		if (!indexFolder.getChildren().isEmpty()) {
+			docFolder.getChildren().add(indexFolder);
+		}
+	}
+
+}
@@ -3,6 +3,7 @@ require.config({
     baseUrl: '{{base-url}}',
     paths: {
         jquery: 'jquery-global', 
+        jstree: '../jstree/jstree'
     }
 });
 